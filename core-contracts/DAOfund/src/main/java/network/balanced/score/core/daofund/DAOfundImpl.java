@@ -37,12 +37,17 @@ public class DAOfundImpl implements DAOfund {
     public void TokenTransfer(Address recipient, BigInteger amount, String note) {
     }
 
+    @EventLog(indexed = 2)
+    public void TokenSent(Address token, Address recipient, BigInteger amount) {
+    }
+
     private static final String GOVERNANCE = "governance";
     private static final String ADMIN = "admin";
     private static final String LOANS_SCORE = "loans_score";
     private static final String ADDRESS = "address";
     private static final String FUND = "fund";
     private static final String AWARDS = "awards";
+    private static final String COMPACT_EVENTS = "compact_events";
 
     private static final VarDB<Address> governance = Context.newVarDB(GOVERNANCE, Address.class);
     private static final VarDB<Address> admin = Context.newVarDB(ADMIN, Address.class);
@@ -52,6 +57,7 @@ public class DAOfundImpl implements DAOfund {
     private final EnumerableSetDB<String> address = new EnumerableSetDB<>(ADDRESS, String.class);
     // Awards hold the amount that can be claimed by any user
     private final BranchDB<Address, DictDB<Address, BigInteger>> awards = Context.newBranchDB(AWARDS, BigInteger.class);
+    private final VarDB<Boolean> compactEvents = Context.newVarDB(COMPACT_EVENTS, Boolean.class);
 
     public static final String TAG = "Balanced DAOfund";
 
@@ -103,6 +109,17 @@ public class DAOfundImpl implements DAOfund {
         return loansScore.get();
     }
 
+    @External
+    public void setCompactEvents(boolean _enabled) {
+        only(governance);
+        compactEvents.set(_enabled);
+    }
+
+    @External(readonly = true)
+    public boolean getCompactEvents() {
+        return compactEvents.getOrDefault(false);
+    }
+
     /**
      * This method fetch the asset tokens from loans contract and add it to address enumerable set. Loans provide a
      * map of token symbol and its address.
@@ -178,6 +195,7 @@ public class DAOfundImpl implements DAOfund {
     public void claim() {
         Address sender = Context.getCaller();
         DictDB<Address, BigInteger> disbursement = awards.at(sender);
+        boolean compact = compactEvents.getOrDefault(false);
 
         for (int addressIndex = 0; addressIndex < address.length(); addressIndex++) {
             Address tokenAddress = Address.fromString(address.at(addressIndex));
@@ -185,8 +203,12 @@ public class DAOfundImpl implements DAOfund {
             if (amountToClaim.signum() > 0) {
                 disbursement.set(tokenAddress, BigInteger.ZERO);
                 Context.call(tokenAddress, "transfer", sender, amountToClaim, new byte[0]);
-                TokenTransfer(sender, amountToClaim,
-                        "Balanced DAOfund disbursement " + amountToClaim + " sent to " + sender.toString());
+                if (compact) {
+                    TokenSent(tokenAddress, sender, amountToClaim);
+                } else {
+                    TokenTransfer(sender, amountToClaim,
+                            "Balanced DAOfund disbursement " + amountToClaim + " sent to " + sender.toString());
+                }
             }
         }
     }
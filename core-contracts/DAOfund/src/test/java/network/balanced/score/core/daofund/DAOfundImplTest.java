@@ -38,6 +38,7 @@ import static network.balanced.score.lib.test.UnitTest.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
@@ -167,4 +168,23 @@ class DAOfundImplTest extends TestBase {
         assertEquals(expectedDisbursement, daofundScore.call("getDisbursementDetail", receiver.getAddress()));
     }
 
+    @Test
+    void claimTokens_CompactEvents() {
+        disburseTokens();
+        Executable setByNonGovernance = () -> daofundScore.invoke(owner, "setCompactEvents", true);
+        expectErrorMessage(setByNonGovernance, "Authorization Check: Authorization failed.");
+        daofundScore.invoke(governanceScore, "setCompactEvents", true);
+
+        try (MockedStatic<Context> tokenMock = Mockito.mockStatic(Context.class, Mockito.CALLS_REAL_METHODS)) {
+            tokenMock
+                    .when(() -> Context.call(any(Address.class), eq("transfer"), any(Address.class),
+                            any(BigInteger.class), any(byte[].class)))
+                    .thenReturn(null);
+
+            daofundScore.invoke(receiver, "claim");
+            verify(daofundSpy).TokenSent(sicxScore.getAddress(), receiver.getAddress(), amount);
+            verify(daofundSpy, never()).TokenTransfer(any(Address.class), any(BigInteger.class), any(String.class));
+        }
+    }
+
 }
\ No newline at end of file
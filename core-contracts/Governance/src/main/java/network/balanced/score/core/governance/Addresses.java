@@ -22,6 +22,7 @@ import score.Context;
 import score.VarDB;
 import scorex.util.HashMap;
 
+import java.math.BigInteger;
 import java.util.Map;
 
 import static network.balanced.score.core.governance.GovernanceConstants.*;
@@ -43,7 +44,9 @@ public class Addresses {
     public static final VarDB<Address> router = Context.newVarDB("router", Address.class);
     public static final VarDB<Address> feehandler = Context.newVarDB("feehandler", Address.class);
     public static final VarDB<Address> stakedLp = Context.newVarDB("stakedLp", Address.class);
-    
+    private static final VarDB<BigInteger> loansAddressBookVersion = Context.newVarDB("loans_address_book_version",
+            BigInteger.class);
+
     private Addresses() {}
 
     public static Address get(String key) {
@@ -114,6 +117,35 @@ public class Addresses {
         }
     }
 
+    /**
+     * Sends the addresses in LOANS_ADDRESS_BOOK to Loans as a single "name:address|name:address" record, tagged with
+     * an increasing version so that Loans can ignore outdated updates. Kept apart from the other address updates,
+     * so that those still work with a Loans deployment that does not support the address book yet.
+     */
+    public static void pushLoansAddressBook() {
+        Address loansAddress = get("loans");
+        if (loansAddress == null) {
+            return;
+        }
+
+        StringBuilder addressBook = new StringBuilder();
+        for (String contract : LOANS_ADDRESS_BOOK) {
+            Address address = get(contract);
+            if (address == null) {
+                continue;
+            }
+
+            if (addressBook.length() > 0) {
+                addressBook.append("|");
+            }
+            addressBook.append(contract).append(":").append(address);
+        }
+
+        BigInteger version = loansAddressBookVersion.getOrDefault(BigInteger.ZERO).add(BigInteger.ONE);
+        loansAddressBookVersion.set(version);
+        GovernanceImpl.call(loansAddress, "setAddressBook", version, addressBook.toString());
+    }
+
     public static void setContractAddresses() {
         for (String targetContract : ADDRESSES.keySet()) {
             for (String contract : ADDRESSES.get(targetContract)) {
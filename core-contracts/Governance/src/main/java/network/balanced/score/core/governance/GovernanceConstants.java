@@ -65,6 +65,9 @@ public class GovernanceConstants extends Constants {
             entry("rebalancing", List.of("loans", "dex", "bnUSD", "sicx"))
     );
 
+    // Peers Loans resolves from its address book, all other peers are set through their own setters
+    public static List<String> LOANS_ADDRESS_BOOK = List.of("feehandler");
+
     public static Map<String, String> ADMIN_ADDRESSES = Map.ofEntries(
             entry("loans", "governance"),
             entry("dex", "governance"),
@@ -920,6 +920,20 @@ public class GovernanceImpl {
         Context.call(Addresses.get("loans"), "setRedeemBatchSize", _value.intValue());
     }
 
+    @External
+    public void setCompactEvents(boolean _enabled) {
+        onlyOwner();
+        Context.call(Addresses.get("loans"), "setCompactEvents", _enabled);
+        Context.call(Addresses.get("reserve"), "setCompactEvents", _enabled);
+        Context.call(Addresses.get("daofund"), "setCompactEvents", _enabled);
+    }
+
+    @External
+    public void pruneLoansSnapshots(BigInteger _batchSize) {
+        onlyOwner();
+        Context.call(Addresses.get("loans"), "pruneSnapshots", _batchSize.intValue());
+    }
+
     @External
     public void addPoolOnStakedLp(BigInteger _id) {
         onlyOwner();
@@ -932,6 +946,12 @@ public class GovernanceImpl {
         Addresses.setAddress(_contract);
     }
 
+    @External
+    public void pushLoansAddressBook() {
+        onlyOwner();
+        Addresses.pushLoansAddressBook();
+    }
+
     @External
     public void setRouter(Address _router) {
         onlyOwner();
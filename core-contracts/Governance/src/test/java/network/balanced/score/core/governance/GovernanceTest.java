@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -889,6 +890,43 @@ public class GovernanceTest extends GovernanceTestBase {
 
     }
 
+    @Test
+    void setCompactEvents() {
+        // Arrange
+        Account notOwner = sm.createAccount();
+        String expectedErrorMessage = "SenderNotScoreOwner: Sender=" + notOwner.getAddress() + "Owner=" + owner.getAddress();
+
+        // Act & Assert
+        Executable withNotOwner = () -> governance.invoke(notOwner, "setCompactEvents", true);
+        expectErrorMessage(withNotOwner, expectedErrorMessage);
+
+        // Act
+        governance.invoke(owner, "setCompactEvents", true);
+
+        // Assert
+        verify(loans.mock).setCompactEvents(true);
+        verify(reserve.mock).setCompactEvents(true);
+        verify(daofund.mock).setCompactEvents(true);
+    }
+
+    @Test
+    void pruneLoansSnapshots() {
+        // Arrange
+        BigInteger _batchSize = BigInteger.valueOf(100);
+        Account notOwner = sm.createAccount();
+        String expectedErrorMessage = "SenderNotScoreOwner: Sender=" + notOwner.getAddress() + "Owner=" + owner.getAddress();
+
+        // Act & Assert
+        Executable withNotOwner = () -> governance.invoke(notOwner, "pruneLoansSnapshots", _batchSize);
+        expectErrorMessage(withNotOwner, expectedErrorMessage);
+
+        // Act
+        governance.invoke(owner, "pruneLoansSnapshots", _batchSize);
+
+        // Assert
+        verify(loans.mock).pruneSnapshots(_batchSize.intValue());
+    }
+
     @Test
     void addPoolOnStakedLp() {
         // Arrange
@@ -927,7 +965,27 @@ public class GovernanceTest extends GovernanceTestBase {
         verify(loans.mock, times(2)).setStaking(staking.getAddress());
         verify(loans.mock, times(2)).setReserve(reserve.getAddress());
         verify(loans.mock, times(2)).setRewards(rewards.getAddress());
+        verify(loans.mock, never()).setAddressBook(any(BigInteger.class), any(String.class));
+    }
 
+    @Test
+    void pushLoansAddressBook() {
+        // Arrange
+        Account notOwner = sm.createAccount();
+        String expectedErrorMessage = "SenderNotScoreOwner: Sender=" + notOwner.getAddress() + "Owner=" + owner.getAddress();
+        String expectedAddressBook = "feehandler:" + feehandler.getAddress();
+
+        // Act & Assert
+        Executable withNotOwner = () -> governance.invoke(notOwner, "pushLoansAddressBook");
+        expectErrorMessage(withNotOwner, expectedErrorMessage);
+
+        // Act
+        governance.invoke(owner, "pushLoansAddressBook");
+        governance.invoke(owner, "pushLoansAddressBook");
+
+        // Assert
+        verify(loans.mock).setAddressBook(BigInteger.ONE, expectedAddressBook);
+        verify(loans.mock).setAddressBook(BigInteger.TWO, expectedAddressBook);
     }
 
     @Test
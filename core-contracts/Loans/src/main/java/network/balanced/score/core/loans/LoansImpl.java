@@ -18,18 +18,22 @@ package network.balanced.score.core.loans;
 
 import com.eclipsesource.json.Json;
 import com.eclipsesource.json.JsonObject;
-import com.eclipsesource.json.JsonValue;
 import network.balanced.score.core.loans.asset.Asset;
 import network.balanced.score.core.loans.asset.AssetDB;
+import network.balanced.score.core.loans.asset.PriceCache;
 import network.balanced.score.core.loans.linkedlist.LinkedListDB;
+import network.balanced.score.core.loans.positions.LiquidationIndex;
 import network.balanced.score.core.loans.positions.Position;
 import network.balanced.score.core.loans.positions.PositionsDB;
 import network.balanced.score.core.loans.snapshot.Snapshot;
 import network.balanced.score.core.loans.snapshot.SnapshotDB;
+import network.balanced.score.core.loans.utils.AddressBook;
+import network.balanced.score.core.loans.utils.CacheScope;
+import network.balanced.score.core.loans.utils.DepositRequest;
 import network.balanced.score.core.loans.utils.Token;
 import network.balanced.score.lib.interfaces.Loans;
 import network.balanced.score.lib.structs.PrepDelegations;
-import network.balanced.score.lib.structs.RewardsDataEntry;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import score.Address;
 import score.Context;
 import score.annotation.EventLog;
@@ -48,7 +52,6 @@ import static network.balanced.score.core.loans.utils.Checks.loansOn;
 import static network.balanced.score.core.loans.utils.Checks.*;
 import static network.balanced.score.core.loans.utils.LoansConstants.*;
 import static network.balanced.score.lib.utils.Check.*;
-import static network.balanced.score.lib.utils.Math.convertToNumber;
 
 public class LoansImpl implements Loans {
 
@@ -105,28 +108,30 @@ public class LoansImpl implements Loans {
 
     @External
     public void migrateUserData(Address address) {
-        Position position = PositionsDB.getPosition(address);
-        int id = position.getSnapshotId(-1);
-
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
-            if (position.getDataMigrationStatus(symbol)) {
-                continue;
-            }
+        CacheScope.enter();
+        PositionsDB.getPosition(address).migrate();
+        CacheScope.exit();
+    }
 
-            if (AssetDB.getAsset(symbol).isCollateral()) {
-                position.setCollateralPosition(symbol, position.getAssets(id, symbol));
-            } else {
-                BigInteger debt = position.getAssets(id, symbol);
-                BigInteger previousTotalDebt = LoansVariables.totalDebts.getOrDefault(symbol, BigInteger.ZERO);
-                BigInteger newTotalDebt = previousTotalDebt.add(debt);
+    @External
+    public boolean migratePositions(int batchSize) {
+        CacheScope.enter();
+        boolean migrated = PositionsDB.migratePositions(batchSize);
+        CacheScope.exit();
+        return migrated;
+    }
 
-                LoansVariables.totalDebts.set(symbol, newTotalDebt);
-                position.setLoansPosition(SICX_SYMBOL, symbol, debt);
-            }
-            position.setDataMigrationStatus(symbol, true);
-        }
+    @External
+    public boolean migrateLinkedLists(int batchSize) {
+        CacheScope.enter();
+        boolean migrated = PositionsDB.migrateLinkedLists(batchSize);
+        CacheScope.exit();
+        return migrated;
+    }
+
+    @External(readonly = true)
+    public boolean getPositionsMigrated() {
+        return PositionsDB.isFullyMigrated();
     }
 
     @External(readonly = true)
@@ -134,9 +139,7 @@ public class LoansImpl implements Loans {
         Map<String, Object> migrationDetails = new HashMap<>();
         Position p = PositionsDB.getPosition(_address);
 
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             migrationDetails.put("flag", Map.of(symbol, p.getDataMigrationStatus(symbol)));
             migrationDetails.put("old", Map.of(symbol, p.getAssets(1, symbol)));
 
@@ -145,9 +148,7 @@ public class LoansImpl implements Loans {
                 amount = p.getCollateralPosition(symbol);
                 migrationDetails.put(symbol, amount);
             } else {
-                int activeCollateralCount = AssetDB.activeCollateral.size();
-                for (int j = 0; j < activeCollateralCount; j++) {
-                    String collateral = AssetDB.activeCollateral.get(j);
+                for (String collateral : AssetDB.getActiveCollateralSymbols()) {
                     amount = p.getLoansPosition(collateral, symbol);
                     migrationDetails.put(symbol, Map.of(collateral, amount));
                 }
@@ -159,6 +160,8 @@ public class LoansImpl implements Loans {
     @External
     public void setContinuousRewardsDay(BigInteger _day) {
         only(governance);
+        Context.require(!legacyFree.getOrDefault(false), TAG + ": Continuous rewards day can not be changed in " +
+                "legacy free mode.");
         continuousRewardDay.set(_day);
     }
 
@@ -239,6 +242,9 @@ public class LoansImpl implements Loans {
 
     @External(readonly = true)
     public BigInteger getTotalCollateral() {
+        if (PositionsDB.isFullyMigrated()) {
+            return AssetDB.getTrackedCollateral();
+        }
         return AssetDB.getTotalCollateral();
     }
 
@@ -248,6 +254,16 @@ public class LoansImpl implements Loans {
         return PositionsDB.listPosition(_owner);
     }
 
+    @External(readonly = true)
+    public Map<String, Object> getPositionsPage(int offset, int limit) {
+        return PositionsDB.getPage(offset, limit);
+    }
+
+    @External(readonly = true)
+    public List<Map<String, Object>> getLiquidationCandidates(BigInteger price, int limit) {
+        return LiquidationIndex.getCandidates(price, limit);
+    }
+
     @External(readonly = true)
     public Map<String, Object> getPositionByIndex(int _index, BigInteger _day) {
         Context.require(isBeforeContinuousRewardDay(_day), continuousRewardsErrorMessage);
@@ -289,27 +305,34 @@ public class LoansImpl implements Loans {
 
     @External
     public void addAsset(Address _token_address, boolean _active, boolean _collateral) {
+        CacheScope.enter();
         only(admin);
         AssetDB.addAsset(_token_address, _active, _collateral);
 
         Token assetContract = new Token(_token_address);
         AssetAdded(_token_address, assetContract.symbol(), _collateral);
+        CacheScope.exit();
     }
 
     @External
     public void toggleAssetActive(String _symbol) {
+        CacheScope.enter();
         only(admin);
         Asset asset = AssetDB.getAsset(_symbol);
         boolean active = asset.isActive();
         asset.setActive(!active);
         AssetActive(_symbol, active ? "Active" : "Inactive");
+        CacheScope.exit();
     }
 
     @External
     public boolean precompute(BigInteger _snapshot_id, BigInteger batch_size) {
+        CacheScope.enter();
         only(rewards);
         checkForNewDay();
-        return PositionsDB.calculateSnapshot(_snapshot_id, batch_size.intValue());
+        boolean done = PositionsDB.calculateSnapshot(_snapshot_id, batch_size.intValue());
+        CacheScope.exit();
+        return done;
     }
 
 
@@ -380,6 +403,7 @@ public class LoansImpl implements Loans {
 
     @External
     public boolean checkForNewDay() {
+        CacheScope.enter();
         loansOn();
         BigInteger day = _getDay();
 
@@ -388,11 +412,12 @@ public class LoansImpl implements Loans {
             PositionsDB.takeSnapshot();
             Snapshot(_getDay());
             AssetDB.updateDeadMarkets();
+            CacheScope.exit();
             return true;
         }
 
-        // TODO See the update frequency of checking dead markets
         AssetDB.updateDeadMarkets();
+        CacheScope.exit();
         return false;
     }
 
@@ -414,6 +439,7 @@ public class LoansImpl implements Loans {
 
     @External
     public void tokenFallback(Address _from, BigInteger _value, byte[] _data) {
+        CacheScope.enter();
         loansOn();
 
         Context.require(_value.signum() > 0, TAG + ": Token value should be a positive number");
@@ -422,26 +448,22 @@ public class LoansImpl implements Loans {
         if (token.equals(expectedToken.get())) {
             amountReceived.set(_value);
             expectedToken.set(null);
+            CacheScope.exit();
             return;
         }
 
         Context.require(token.equals(AssetDB.getAsset(SICX_SYMBOL).getAssetAddress()), TAG + ": The Balanced Loans " +
                 "contract does not accept that token type.");
 
-        String unpackedData = new String(_data);
-        Context.require(!unpackedData.equals(""), TAG + ": Token Fallback: Data can't be empty");
-
-        JsonObject json = Json.parse(unpackedData).asObject();
-
-        String requestedAsset = json.get("_asset").asString();
-        JsonValue amount = json.get("_amount");
-        BigInteger requestedAmount = amount == null ? null : convertToNumber(amount);
-        depositAndBorrow(requestedAsset, requestedAmount, _from, _value);
+        DepositRequest request = DepositRequest.decode(_data);
+        depositAndBorrow(request.getAsset(), request.getAmount(), _from, _value);
+        CacheScope.exit();
     }
 
     @External
     @Payable
     public void depositAndBorrow(@Optional String _asset, @Optional BigInteger _amount, @Optional Address _from, @Optional BigInteger _value) {
+        CacheScope.enter();
         loansOn();
         BigInteger deposit = Context.getValue();
         Address sender = Context.getCaller();
@@ -458,6 +480,7 @@ public class LoansImpl implements Loans {
 
                 BigInteger received = amountReceived.getOrDefault(BigInteger.ZERO);
                 Context.require(!received.equals(BigInteger.ZERO), TAG + ": Expected sICX not received.");
+                expectedToken.set(null);
                 amountReceived.set(null);
                 sicxDeposited = received;
             }
@@ -473,14 +496,17 @@ public class LoansImpl implements Loans {
         }
 
         if (_asset == null || _asset.equals("") || _amount == null || _amount.compareTo(BigInteger.ZERO) <= 0) {
+            CacheScope.exit();
             return;
         }
 
         originateLoan(_asset, _amount, depositor);
+        CacheScope.exit();
     }
 
     @External
     public void retireBadDebt(String _symbol, BigInteger _value) {
+        CacheScope.enter();
         loansOn();
         Context.require(_value.compareTo(BigInteger.ZERO) > 0, TAG + ": Amount retired must be greater than zero.");
 
@@ -506,12 +532,14 @@ public class LoansImpl implements Loans {
 
         BigInteger sicxCollateralToRedeem = badDebtRedeem(from, asset, badDebtValue);
         transferToken(SICX_SYMBOL, from, sicxCollateralToRedeem, "Bad Debt redeemed.", new byte[0]);
-        asset.checkForDeadMarket();
+        asset.updateDeadMarket();
         BadDebtRetired(from, _symbol, badDebtValue, sicxCollateralToRedeem);
+        CacheScope.exit();
     }
 
     @External
     public void returnAsset(String _symbol, BigInteger _value, @Optional boolean _repay) {
+        CacheScope.enter();
         loansOn();
         Context.require(_value.compareTo(BigInteger.ZERO) > 0, TAG + ": Amount retired must be greater than zero.");
 
@@ -540,6 +568,7 @@ public class LoansImpl implements Loans {
         Context.require(_value.compareTo(borrowed) <= 0, TAG + ": Repaid amount is greater than the amount in the " +
                 "position of " + from);
         if (_value.compareTo(BigInteger.ZERO) <= 0) {
+            CacheScope.exit();
             return;
         }
 
@@ -560,15 +589,21 @@ public class LoansImpl implements Loans {
             }
         }
 
-        Context.call(rewards.get(), "updateRewardsData", "Loans", oldSupply, from, borrowed);
+        updateRewardsData(oldSupply, from, borrowed, position);
 
-        asset.checkForDeadMarket();
-        String logMessage = "Loan of " + repaid + " " + _symbol + " repaid to Balanced.";
-        LoanRepaid(from, _symbol, repaid, logMessage);
+        asset.updateDeadMarket();
+        if (isCompactEvents()) {
+            LoanReturned(from, _symbol, repaid);
+        } else {
+            String logMessage = "Loan of " + repaid + " " + _symbol + " repaid to Balanced.";
+            LoanRepaid(from, _symbol, repaid, logMessage);
+        }
+        CacheScope.exit();
     }
 
     @External
     public void raisePrice(BigInteger _total_tokens_required) {
+        CacheScope.enter();
         loansOn();
         only(rebalancing);
 
@@ -578,21 +613,13 @@ public class LoansImpl implements Loans {
         int batchSize = redeemBatch.get();
         LinkedListDB borrowers = asset.getBorrowers();
 
-        int nodeId = borrowers.getHeadId();
+        Map<Integer, BigInteger> positionsMap = borrowers.readFromCursor(batchSize);
+        int iterations = positionsMap.size();
         BigInteger totalBatchDebt = BigInteger.ZERO;
-        Map<Integer, BigInteger> positionsMap = new HashMap<>();
-
-        int iterations = Math.min(batchSize, borrowers.size());
-        for (int i = 0; i < iterations; i++) {
-            BigInteger debt = borrowers.nodeValue(nodeId);
-            positionsMap.put(nodeId, debt);
+        for (BigInteger debt : positionsMap.values()) {
             totalBatchDebt = totalBatchDebt.add(debt);
-            borrowers.headToTail();
-            nodeId = borrowers.getHeadId();
         }
 
-        borrowers.serialize();
-
         BigInteger sicxToSell =
                 maxRetirePercent.get().multiply(totalBatchDebt).multiply(EXA).divide(POINTS.multiply(rate));
         sicxToSell = sicxToSell.min(_total_tokens_required);
@@ -600,9 +627,11 @@ public class LoansImpl implements Loans {
         expectedToken.set(asset.getAssetAddress());
         byte[] data = createSwapData(asset.getAssetAddress());
         transferToken(SICX_SYMBOL, dex.get(), sicxToSell, "sICX swapped for bnUSD", data);
+        PriceCache.clearCache();
 
         BigInteger bnUSDReceived = amountReceived.get();
 
+        expectedToken.set(null);
         amountReceived.set(null);
         asset.burnFrom(Context.getAddress(), bnUSDReceived);
 
@@ -610,7 +639,7 @@ public class LoansImpl implements Loans {
         BigInteger remainingBnusd = bnUSDReceived;
 
         StringBuilder changeLog = new StringBuilder("{");
-        RewardsDataEntry[] rewardsBatchList = new RewardsDataEntry[iterations];
+        RewardsBalanceEntry[] rewardsBatchList = new RewardsBalanceEntry[iterations];
         int dataEntryIndex = 0;
         for (Map.Entry<Integer, BigInteger> entry : positionsMap.entrySet()) {
             int id = entry.getKey();
@@ -619,11 +648,13 @@ public class LoansImpl implements Loans {
 
             BigInteger loanShare = remainingBnusd.multiply(userDebt).divide(remainingSupply);
             remainingBnusd = remainingBnusd.subtract(loanShare);
-            position.setAssetPosition(BNUSD_SYMBOL, userDebt.subtract(loanShare));
+            BigInteger newUserDebt = userDebt.subtract(loanShare);
+            position.setAssetPosition(BNUSD_SYMBOL, newUserDebt);
 
-            RewardsDataEntry userEntry = new RewardsDataEntry();
+            RewardsBalanceEntry userEntry = new RewardsBalanceEntry();
             userEntry._user = position.getAddress();
             userEntry._balance = userDebt;
+            userEntry._newBalance = newUserDebt;
             rewardsBatchList[dataEntryIndex] = userEntry;
             dataEntryIndex = dataEntryIndex + 1;
 
@@ -637,15 +668,18 @@ public class LoansImpl implements Loans {
             "'c': " + sicxShare.negate() + "}, ");
         }
 
-        Context.call(rewards.get(), "updateBatchRewardsData", "Loans", oldTotalDebt, rewardsBatchList);
+        Context.call(rewards.get(), "updateBatchRewardsDataWithBalance", "Loans", oldTotalDebt,
+                totalDebts.getOrDefault(BNUSD_SYMBOL, BigInteger.ZERO), rewardsBatchList);
 
         changeLog.delete(changeLog.length()-2, changeLog.length()).append("}");
 
         Rebalance(Context.getCaller(), BNUSD_SYMBOL, changeLog.toString(), totalBatchDebt);
+        CacheScope.exit();
     }
 
     @External
     public void lowerPrice(BigInteger _total_tokens_required) {
+        CacheScope.enter();
         loansOn();
         only(rebalancing);
 
@@ -654,21 +688,13 @@ public class LoansImpl implements Loans {
         int batchSize = redeemBatch.get();
         LinkedListDB borrowers = AssetDB.getAsset(BNUSD_SYMBOL).getBorrowers();
 
-        int nodeId = borrowers.getHeadId();
+        Map<Integer, BigInteger> positionsMap = borrowers.readFromCursor(batchSize);
+        int iterations = positionsMap.size();
         BigInteger totalBatchDebt = BigInteger.ZERO;
-        Map<Integer, BigInteger> positionsMap = new HashMap<>();
-
-        int iterations = Math.min(batchSize, borrowers.size());
-        for (int i = 0; i < iterations; i++) {
-            BigInteger debt = borrowers.nodeValue(nodeId);
-            positionsMap.put(nodeId, debt);
+        for (BigInteger debt : positionsMap.values()) {
             totalBatchDebt = totalBatchDebt.add(debt);
-            borrowers.headToTail();
-            nodeId = borrowers.getHeadId();
         }
 
-        borrowers.serialize();
-
         BigInteger bnusdToSell = maxRetirePercent.get().multiply(totalBatchDebt).divide(POINTS);
         bnusdToSell = bnusdToSell.min(_total_tokens_required);
 
@@ -677,12 +703,15 @@ public class LoansImpl implements Loans {
 
         expectedToken.set(bnusdAddress);
         bnusdContract.mintTo(Context.getAddress(), bnusdToSell);
+        expectedToken.set(null);
         amountReceived.set(null);
 
         expectedToken.set(asset.getAssetAddress());
         byte[] data = createSwapData(asset.getAssetAddress());
         transferToken(BNUSD_SYMBOL, dex.get(), bnusdToSell, "bnUSD swapped for sICX", data);
+        PriceCache.clearCache();
         BigInteger receivedSicx = amountReceived.get();
+        expectedToken.set(null);
         amountReceived.set(null);
 
         BigInteger remainingSicx = receivedSicx;
@@ -690,7 +719,7 @@ public class LoansImpl implements Loans {
         BigInteger remainingBnusd = bnusdToSell;
 
         StringBuilder changeLog = new StringBuilder("{");
-        RewardsDataEntry[] rewardsBatchList = new RewardsDataEntry[iterations];
+        RewardsBalanceEntry[] rewardsBatchList = new RewardsBalanceEntry[iterations];
         int dataEntryIndex = 0;
         for (Map.Entry<Integer, BigInteger> entry : positionsMap.entrySet()) {
             int id = entry.getKey();
@@ -698,11 +727,13 @@ public class LoansImpl implements Loans {
             Position position = PositionsDB.get(id);
             BigInteger loanShare = remainingBnusd.multiply(userDebt).divide(remainingSupply);
             remainingBnusd = remainingBnusd.subtract(loanShare);
-            position.setAssetPosition(BNUSD_SYMBOL, userDebt.add(loanShare));
+            BigInteger newUserDebt = userDebt.add(loanShare);
+            position.setAssetPosition(BNUSD_SYMBOL, newUserDebt);
 
-            RewardsDataEntry userEntry = new RewardsDataEntry();
+            RewardsBalanceEntry userEntry = new RewardsBalanceEntry();
             userEntry._user = position.getAddress();
             userEntry._balance = userDebt;
+            userEntry._newBalance = newUserDebt;
             rewardsBatchList[dataEntryIndex] = userEntry;
             dataEntryIndex = dataEntryIndex + 1;
 
@@ -716,14 +747,17 @@ public class LoansImpl implements Loans {
                 "'c': " + sicxShare + "}, ");
         }
 
-        Context.call(rewards.get(), "updateBatchRewardsData", "Loans", oldTotalDebt, rewardsBatchList);
+        Context.call(rewards.get(), "updateBatchRewardsDataWithBalance", "Loans", oldTotalDebt,
+                totalDebts.getOrDefault(BNUSD_SYMBOL, BigInteger.ZERO), rewardsBatchList);
 
         changeLog.delete(changeLog.length()-2, changeLog.length()).append("}");
         Rebalance(Context.getCaller(), BNUSD_SYMBOL, changeLog.toString(), totalBatchDebt);
+        CacheScope.exit();
     }
 
     @External
     public void withdrawCollateral(BigInteger _value) {
+        CacheScope.enter();
         loansOn();
 
         Context.require(_value.compareTo(BigInteger.ZERO) > 0, TAG + ": Withdraw amount must be more than zero.");
@@ -739,11 +773,7 @@ public class LoansImpl implements Loans {
                 "collateral than the requested withdrawal.");
         BigInteger assetValue = position.totalDebt(-1, false);
         BigInteger remainingSicx = position.getAssetPosition(SICX_SYMBOL).subtract(_value);
-
-        Address sicxAddress = AssetDB.getAsset(SICX_SYMBOL).getAssetAddress();
-        Token sicxContract = new Token(sicxAddress);
-
-        BigInteger remainingCollateral = remainingSicx.multiply(sicxContract.priceInLoop()).divide(EXA);
+        BigInteger remainingCollateral = remainingSicx.multiply(PriceCache.getPrice(SICX_SYMBOL)).divide(EXA);
 
         BigInteger lockingValue = lockingRatio.get().multiply(assetValue).divide(POINTS);
         Context.require(remainingCollateral.compareTo(lockingValue) >= 0,
@@ -755,10 +785,12 @@ public class LoansImpl implements Loans {
 
         position.setAssetPosition(SICX_SYMBOL, remainingSicx);
         transferToken(SICX_SYMBOL, from, _value, "Collateral withdrawn.", new byte[0]);
+        CacheScope.exit();
     }
 
     @External
     public void liquidate(Address _owner) {
+        CacheScope.enter();
         loansOn();
 
         Context.require(PositionsDB.hasPosition(_owner), TAG + ": This address does not have a position on Balanced.");
@@ -772,6 +804,7 @@ public class LoansImpl implements Loans {
         }
 
         if (standing != Standings.LIQUIDATE) {
+            CacheScope.exit();
             return;
         }
 
@@ -781,24 +814,19 @@ public class LoansImpl implements Loans {
         BigInteger totalDebt = position.totalDebt(-1, false);
         BigInteger oldTotalDebt = totalDebts.getOrDefault(BNUSD_SYMBOL, BigInteger.ZERO);
 
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             Asset asset = AssetDB.getAsset(symbol);
-            Address assetAddress = asset.getAssetAddress();
-            Token assetContract = new Token(assetAddress);
             BigInteger debt = position.getAssetPosition(symbol);
             if (!asset.isCollateral() && asset.isActive() && debt.compareTo(BigInteger.ZERO) > 0) {
-                Context.call(rewards.get(), "updateRewardsData", "Loans", oldTotalDebt, _owner, debt);
-
                 BigInteger badDebt = asset.getBadDebt();
                 asset.setBadDebt(badDebt.add(debt));
-                BigInteger symbolDebt = debt.multiply(assetContract.priceInLoop()).divide(EXA);
+                BigInteger symbolDebt = debt.multiply(PriceCache.getPrice(asset.getAssetAddress())).divide(EXA);
                 BigInteger share = forPool.multiply(symbolDebt.divide(totalDebt));
                 totalDebt = totalDebt.subtract(symbolDebt);
                 forPool = forPool.subtract(share);
                 asset.setLiquidationPool(asset.getLiquidationPool().add(share));
                 position.setAssetPosition(symbol, null);
+                updateRewardsData(oldTotalDebt, _owner, debt, position);
             }
         }
 
@@ -810,20 +838,19 @@ public class LoansImpl implements Loans {
             PositionsDB.removeNonZero(position.getId());
         }
 
-        String logMessage = collateral + " liquidated from " + _owner;
-        Liquidate(_owner, collateral, logMessage);
+        if (isCompactEvents()) {
+            PositionLiquidated(_owner, collateral);
+        } else {
+            String logMessage = collateral + " liquidated from " + _owner;
+            Liquidate(_owner, collateral, logMessage);
+        }
+        CacheScope.exit();
     }
 
     private BigInteger badDebtRedeem(Address from, Asset asset, BigInteger badDebtValue) {
-        Address assetAddress = asset.getAssetAddress();
-        Token assetContract = new Token(assetAddress);
-
-        BigInteger price = assetContract.priceInLoop();
+        BigInteger price = PriceCache.getPrice(asset.getAssetAddress());
         Asset sicx = AssetDB.getAsset(SICX_SYMBOL);
-        Address sicxAddress = sicx.getAssetAddress();
-        Token sicxContract = new Token(sicxAddress);
-
-        BigInteger sicxRate = sicxContract.priceInLoop();
+        BigInteger sicxRate = PriceCache.getPrice(sicx.getAssetAddress());
         BigInteger inPool = asset.getLiquidationPool();
         BigInteger badDebt = asset.getBadDebt().subtract(badDebtValue);
 
@@ -846,13 +873,14 @@ public class LoansImpl implements Loans {
 
         BigInteger received = amountReceived.get();
         Context.require(received.equals(badDebtSicx.subtract(inPool)), TAG + ": Got unexpected sICX from reserve.");
+        expectedToken.set(null);
         amountReceived.set(null);
         return inPool.add(received);
     }
 
     private void originateLoan(String assetToBorrow, BigInteger amount, Address from) {
         Asset asset = AssetDB.getAsset(assetToBorrow);
-        Context.require(!asset.checkForDeadMarket(), TAG + ": No new loans of " + assetToBorrow + " can be originated" +
+        Context.require(!asset.updateDeadMarket(), TAG + ": No new loans of " + assetToBorrow + " can be originated" +
                 " since it is in a dead market state.");
         Context.require(!asset.isCollateral(), TAG + ": Loans of collateral assets are not allowed.");
         Context.require(asset.isActive(), TAG + ": Loans of inactive assets are not allowed.");
@@ -868,11 +896,10 @@ public class LoansImpl implements Loans {
         Token borrowAsset = new Token(borrowAssetAddress);
 
         BigInteger newDebt = amount.add(fee);
-        BigInteger newDebtValue = borrowAsset.priceInLoop().multiply(newDebt).divide(EXA);
+        BigInteger newDebtValue = PriceCache.getPrice(borrowAssetAddress).multiply(newDebt).divide(EXA);
         BigInteger holdings = position.getAssetPosition(assetToBorrow);
         if (holdings.equals(BigInteger.ZERO)) {
-            Token bnusd = new Token(AssetDB.getAsset(BNUSD_SYMBOL).getAssetAddress());
-            BigInteger dollarValue = newDebtValue.multiply(EXA).divide(bnusd.priceInLoop());
+            BigInteger dollarValue = newDebtValue.multiply(EXA).divide(PriceCache.getPrice(BNUSD_SYMBOL));
             Context.require(dollarValue.compareTo(newLoanMinimum.get()) >= 0, TAG + ": The initial loan of any " +
                     "asset must have a minimum value of " + newLoanMinimum.get().divide(EXA) + " dollars.");
             AssetDB.getAsset(assetToBorrow).getBorrowers().append(newDebt, position.getId());
@@ -893,21 +920,43 @@ public class LoansImpl implements Loans {
             }
         }
 
-        Context.call(rewards.get(), "updateRewardsData", "Loans", oldTotalDebt, from, holdings);
-
         position.setAssetPosition(assetToBorrow, holdings.add(newDebt));
+        updateRewardsData(oldTotalDebt, from, holdings, position);
         borrowAsset.mintTo(from, amount);
 
-        String logMessage = "Loan of " + amount + " " + assetToBorrow + " from Balanced.";
-        OriginateLoan(from, assetToBorrow, amount, logMessage);
+        if (isCompactEvents()) {
+            LoanOriginated(from, assetToBorrow, amount);
+        } else {
+            String logMessage = "Loan of " + amount + " " + assetToBorrow + " from Balanced.";
+            OriginateLoan(from, assetToBorrow, amount, logMessage);
+        }
 
-        Address feeHandler = Context.call(Address.class, governance.get(), "getContractAddress", "feehandler");
+        Address feeHandler = AddressBook.getAll().get("feehandler");
+        if (feeHandler == null) {
+            feeHandler = Context.call(Address.class, governance.get(), "getContractAddress", "feehandler");
+        }
         borrowAsset.mintTo(feeHandler, fee);
         FeePaid(assetToBorrow, fee, "origination");
     }
 
+    /**
+     * Reports a change of a position to rewards, including the debt and total debt after the change so that rewards
+     * does not have to query them from Loans.
+     */
+    private void updateRewardsData(BigInteger oldTotalDebt, Address user, BigInteger previousDebt, Position position) {
+        BigInteger totalDebt = totalDebts.getOrDefault(BNUSD_SYMBOL, BigInteger.ZERO);
+        Context.call(rewards.get(), "updateRewardsDataWithBalance", "Loans", oldTotalDebt, user, previousDebt,
+                totalDebt, position.getAssetPosition(BNUSD_SYMBOL));
+    }
+
     private void transferToken(String tokenSymbol, Address to, BigInteger amount, String msg, byte[] data) {
-        Context.call(AssetDB.getAsset(tokenSymbol).getAssetAddress(), "transfer", to, amount, data);
+        Address token = AssetDB.getAsset(tokenSymbol).getAssetAddress();
+        Context.call(token, "transfer", to, amount, data);
+        if (isCompactEvents()) {
+            TokenSent(token, to, amount);
+            return;
+        }
+
         String logMessage = msg + " " + amount.toString() + " " + tokenSymbol + " sent to " + to;
         TokenTransfer(to, amount, logMessage);
     }
@@ -994,6 +1043,45 @@ public class LoansImpl implements Loans {
         return reserve.get();
     }
 
+    @External
+    public void setAddressBook(BigInteger _version, String _addressBook) {
+        only(governance);
+        AddressBook.set(_version, _addressBook);
+    }
+
+    @External(readonly = true)
+    public Map<String, Object> getAddressBook() {
+        return Map.of(
+                "version", AddressBook.getVersion(),
+                "addresses", AddressBook.getAll()
+        );
+    }
+
+    /**
+     * Switches between the original events, which carry a descriptive note, and compact events, which carry only
+     * structured fields and are cheaper to build and store.
+     */
+    @External
+    public void setCompactEvents(boolean _enabled) {
+        only(governance);
+        compactEvents.set(_enabled);
+    }
+
+    @External(readonly = true)
+    public boolean getCompactEvents() {
+        return compactEvents.getOrDefault(false);
+    }
+
+    @External
+    public Map<String, Object> pruneSnapshots(int batchSize) {
+        CacheScope.enter();
+        only(governance);
+        Map<String, Object> result = PositionsDB.pruneSnapshots(batchSize);
+        SnapshotsPruned((Integer) result.get("entries"), (BigInteger) result.get("bytes"), (Boolean) result.get("done"));
+        CacheScope.exit();
+        return result;
+    }
+
     @External
     public void setRewards(Address _address) {
         only(admin);
@@ -1124,6 +1212,10 @@ public class LoansImpl implements Loans {
     public void ContractActive(String _contract, String _state) {
     }
 
+    @EventLog
+    public void SnapshotsPruned(int entries, BigInteger bytes, boolean done) {
+    }
+
     @EventLog(indexed = 1)
     public void AssetActive(String _asset, String _state) {
     }
@@ -1156,6 +1248,22 @@ public class LoansImpl implements Loans {
     public void Liquidate(Address account, BigInteger amount, String note) {
     }
 
+    @EventLog(indexed = 2)
+    public void TokenSent(Address token, Address recipient, BigInteger amount) {
+    }
+
+    @EventLog(indexed = 2)
+    public void LoanOriginated(Address recipient, String symbol, BigInteger amount) {
+    }
+
+    @EventLog(indexed = 2)
+    public void LoanReturned(Address account, String symbol, BigInteger amount) {
+    }
+
+    @EventLog(indexed = 1)
+    public void PositionLiquidated(Address account, BigInteger collateral) {
+    }
+
     @EventLog(indexed = 3)
     public void FeePaid(String symbol, BigInteger amount, String type) {
     }
@@ -16,6 +16,7 @@
 
 package network.balanced.score.core.loans;
 
+import network.balanced.score.lib.utils.TransientSlot;
 import score.Address;
 import score.Context;
 import score.DictDB;
@@ -54,14 +55,14 @@ public class LoansVariables {
     private static final String MIN_MINING_DEBT = "min_mining_debt";
     private static final String MAX_DEBTS_LIST_LENGTH = "max_debts_list_length";
     private static final String TOTAL_DEBT = "totalDebts";
+    private static final String TOTAL_COLLATERAL = "total_collateral";
 
 
     private static final String REDEEM_BATCH_SIZE = "redeem_batch_size";
     private static final String MAX_RETIRE_PERCENT = "max_retire_percent";
     private static final String CONTINUOUS_REWARD_DAY = "continuous_reward_day";
-
-    private static final String EXPECTED_TOKEN = "expectedToken";
-    private static final String AMOUNT_RECEIVED = "amountReceived";
+    private static final String LEGACY_FREE = "legacy_free";
+    private static final String COMPACT_EVENTS = "compact_events";
 
     public static final VarDB<Boolean> loansOn = Context.newVarDB(LOANS_ON, Boolean.class);
 
@@ -80,11 +81,14 @@ public class LoansVariables {
     static final VarDB<Boolean> dividendsDone = Context.newVarDB(DIVIDENDS_DONE, Boolean.class);
     public static final VarDB<BigInteger> continuousRewardDay = Context.newVarDB(CONTINUOUS_REWARD_DAY,
             BigInteger.class);
+    public static final VarDB<Boolean> legacyFree = Context.newVarDB(LEGACY_FREE, Boolean.class);
     static final VarDB<BigInteger> currentDay = Context.newVarDB(CURRENT_DAY, BigInteger.class);
     static final VarDB<BigInteger> timeOffset = Context.newVarDB(TIME_OFFSET, BigInteger.class);
     public static final VarDB<BigInteger> miningRatio = Context.newVarDB(MINING_RATIO, BigInteger.class);
     public static final VarDB<BigInteger> lockingRatio = Context.newVarDB(LOCKING_RATIO, BigInteger.class);
     public static final DictDB<String, BigInteger> totalDebts = Context.newDictDB(TOTAL_DEBT, BigInteger.class);
+    public static final DictDB<String, BigInteger> totalCollateral = Context.newDictDB(TOTAL_COLLATERAL,
+            BigInteger.class);
 
 
     public static final VarDB<BigInteger> liquidationRatio = Context.newVarDB(LIQUIDATION_RATIO, BigInteger.class);
@@ -98,6 +102,9 @@ public class LoansVariables {
     static final VarDB<Integer> redeemBatch = Context.newVarDB(REDEEM_BATCH_SIZE, Integer.class);
     static final VarDB<BigInteger> maxRetirePercent = Context.newVarDB(MAX_RETIRE_PERCENT, BigInteger.class);
 
-    static final VarDB<Address> expectedToken = Context.newVarDB(EXPECTED_TOKEN, Address.class);
-    static final VarDB<BigInteger> amountReceived = Context.newVarDB(AMOUNT_RECEIVED, BigInteger.class);
+    public static final VarDB<Boolean> compactEvents = Context.newVarDB(COMPACT_EVENTS, Boolean.class);
+
+    // Handshake with tokenFallback during staking, swaps and Reserve redemptions, cleared once the handshake is done
+    static final TransientSlot<Address> expectedToken = new TransientSlot<>();
+    static final TransientSlot<BigInteger> amountReceived = new TransientSlot<>();
 }
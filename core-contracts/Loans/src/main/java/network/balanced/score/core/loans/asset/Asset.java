@@ -42,21 +42,28 @@ public class Asset {
     private final BranchDB<String, VarDB<Boolean>> isCollateral = Context.newBranchDB("is_collateral", Boolean.class);
     private final BranchDB<String, VarDB<Boolean>> active = Context.newBranchDB("active", Boolean.class);
     private final BranchDB<String, VarDB<Boolean>> deadMarket = Context.newBranchDB("dead_market", Boolean.class);
+    private final BranchDB<String, VarDB<BigInteger>> deadMarketCheckedBlock = Context.newBranchDB(
+            "dead_market_checked_block", BigInteger.class);
 
     private final String dbKey;
 
+    // Values memoized for the lifetime of the handle, which AssetDB limits to a single transaction
+    private Address address;
+    private Boolean collateral;
+    private Boolean activeFlag;
+
     Asset(String key) {
         dbKey = key;
     }
 
     public void burn(BigInteger amount) {
-        call(assetAddress.at(dbKey).get(), "burn", amount);
+        call(getAssetAddress(), "burn", amount);
         VarDB<BigInteger> totalBurnedTokens = this.totalBurnedTokens.at(dbKey);
         totalBurnedTokens.set(totalBurnedTokens.getOrDefault(BigInteger.ZERO).add(amount));
     }
 
     public void burnFrom(Address from, BigInteger amount) {
-        call(assetAddress.at(dbKey).get(), "burnFrom", from, amount);
+        call(getAssetAddress(), "burnFrom", from, amount);
         VarDB<BigInteger> totalBurnedTokens = this.totalBurnedTokens.at(dbKey);
         totalBurnedTokens.set(totalBurnedTokens.getOrDefault(BigInteger.ZERO).add(amount));
     }
@@ -66,11 +73,22 @@ public class Asset {
     }
 
     public Address getAssetAddress() {
-        return assetAddress.at(dbKey).get();
+        if (address == null) {
+            address = assetAddress.at(dbKey).get();
+        }
+        return address;
     }
 
     public void setBadDebt(BigInteger badDebt) {
         this.badDebt.at(dbKey).set(badDebt);
+        clearDeadMarketCheck();
+    }
+
+    private void clearDeadMarketCheck() {
+        VarDB<BigInteger> checkedBlock = deadMarketCheckedBlock.at(dbKey);
+        if (checkedBlock.get() != null) {
+            checkedBlock.set(null);
+        }
     }
 
     public BigInteger getBadDebt() {
@@ -79,6 +97,7 @@ public class Asset {
 
     public void setLiquidationPool(BigInteger liquidationPool) {
         this.liquidationPool.at(dbKey).set(liquidationPool);
+        clearDeadMarketCheck();
     }
 
     public BigInteger getLiquidationPool() {
@@ -90,15 +109,22 @@ public class Asset {
     }
 
     public boolean isCollateral() {
-        return isCollateral.at(dbKey).getOrDefault(false);
+        if (collateral == null) {
+            collateral = isCollateral.at(dbKey).getOrDefault(false);
+        }
+        return collateral;
     }
 
     public void setActive(Boolean active) {
         this.active.at(dbKey).set(active);
+        activeFlag = active;
     }
 
     public boolean isActive() {
-        return active.at(dbKey).getOrDefault(false);
+        if (activeFlag == null) {
+            activeFlag = active.at(dbKey).getOrDefault(false);
+        }
+        return activeFlag;
     }
 
     boolean isDeadMarket() {
@@ -116,17 +142,13 @@ public class Asset {
 
         BigInteger badDebt = getBadDebt();
 
-        Address assetAddress = this.assetAddress.at(dbKey).get();
-        Token assetContract = new Token(assetAddress);
+        Token assetContract = new Token(getAssetAddress());
 
         BigInteger outStanding = assetContract.totalSupply().subtract(badDebt);
 
-        Address sicxAddress = AssetDB.getAsset(SICX_SYMBOL).getAssetAddress();
-        Token sicxContract = new Token(sicxAddress);
-
         // [Multi-collateral] Here it assumes every token should be denominated in terms of sicx.
         BigInteger poolValue =
-                getLiquidationPool().multiply(assetContract.priceInLoop()).divide(sicxContract.priceInLoop());
+                getLiquidationPool().multiply(PriceCache.getPrice(getAssetAddress())).divide(PriceCache.getPrice(SICX_SYMBOL));
         BigInteger netBadDebt = badDebt.subtract(poolValue);
         Boolean isDead = netBadDebt.compareTo(outStanding.divide(BigInteger.TWO)) > 0;
 
@@ -134,9 +156,36 @@ public class Asset {
         if (deadMarket.getOrDefault(false) != isDead) {
             deadMarket.set(isDead);
         }
+        deadMarketCheckedBlock.at(dbKey).set(BigInteger.valueOf(Context.getBlockHeight()));
         return isDead;
     }
 
+    /**
+     * Returns the dead market flag, recalculating it only when needed. A market without bad debt can not be dead, so
+     * the supply and price calls are skipped entirely in that case. Otherwise the flag is recalculated at most once per
+     * block, or as soon as the bad debt or the liquidation pool changed.
+     */
+    public boolean updateDeadMarket() {
+        if (isCollateral() || !isActive()) {
+            return false;
+        }
+
+        if (getBadDebt().signum() == 0) {
+            VarDB<Boolean> deadMarket = this.deadMarket.at(dbKey);
+            if (deadMarket.getOrDefault(false)) {
+                deadMarket.set(false);
+            }
+            return false;
+        }
+
+        BigInteger checkedBlock = deadMarketCheckedBlock.at(dbKey).get();
+        if (checkedBlock != null && checkedBlock.longValue() == Context.getBlockHeight()) {
+            return isDeadMarket();
+        }
+
+        return checkForDeadMarket();
+    }
+
     public LinkedListDB getBorrowers() {
         return new LinkedListDB("borrowers", dbKey);
     }
@@ -150,10 +199,13 @@ public class Asset {
         this.assetAddedTime.at(dbKey).set(assetAddedTime);
         this.active.at(dbKey).set(active);
         this.isCollateral.at(dbKey).set(collateral);
+        this.address = assetAddress;
+        this.activeFlag = active;
+        this.collateral = collateral;
     }
 
     Map<String, Object> toMap() {
-        Address assetAddress = this.assetAddress.at(dbKey).get();
+        Address assetAddress = getAssetAddress();
         Token tokenContract = new Token(assetAddress);
 
         Map<String, Object> assetDetails = new HashMap<>();
@@ -16,7 +16,9 @@
 
 package network.balanced.score.core.loans.asset;
 
+import network.balanced.score.core.loans.LoansVariables;
 import network.balanced.score.core.loans.utils.Token;
+import network.balanced.score.core.loans.utils.TransactionScope;
 import score.Address;
 import score.ArrayDB;
 import score.Context;
@@ -29,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 
 import static network.balanced.score.lib.utils.ArrayDBUtils.arrayDbContains;
+import static network.balanced.score.core.loans.utils.LoansConstants.SICX_SYMBOL;
 import static network.balanced.score.lib.utils.Constants.EXA;
 
 public class AssetDB {
@@ -42,31 +45,105 @@ public class AssetDB {
     private static final ArrayDB<String> collateralList = Context.newArrayDB("collateral", String.class);
     public static final DictDB<String, String> symbolMap = Context.newDictDB("symbol|address", String.class);
 
+    private static final TransactionScope scope = new TransactionScope();
+    private static final Map<String, Asset> assetCache = new HashMap<>();
+    private static List<String> assetSymbolsCache;
+    private static List<String> activeAssetsCache;
+    private static List<String> activeCollateralCache;
+
     public static int size() {
         return assetAddresses.size();
     }
 
+    private static void enterScope() {
+        if (scope.enter()) {
+            clearEntries();
+        }
+    }
+
+    private static void clearEntries() {
+        assetCache.clear();
+        assetSymbolsCache = null;
+        activeAssetsCache = null;
+        activeCollateralCache = null;
+    }
+
+    /**
+     * Drops all cached asset handles and symbol lists. Static fields are stored with the contract, so this is called
+     * when a transaction leaves the contract to keep the caches out of its stored state.
+     */
+    public static void clearCache() {
+        scope.reset();
+        clearEntries();
+    }
+
+    /**
+     * Symbol lookups go through symbolMap, which holds an entry for every listed symbol, so resolving an asset does
+     * not depend on the number of listed assets. Resolved handles are reused for the rest of the transaction.
+     */
     public static Asset getAsset(String symbol) {
-        Context.require(arrayDbContains(assetSymbols, symbol), symbol + "is not a supported asset.");
+        enterScope();
+        Asset asset = assetCache.get(symbol);
+        if (asset != null) {
+            return asset;
+        }
+
         String assetAddress = symbolMap.get(symbol);
-        return new Asset(ASSET_DB_PREFIX + "|" + assetAddress);
+        Context.require(assetAddress != null, symbol + "is not a supported asset.");
+        asset = new Asset(ASSET_DB_PREFIX + "|" + assetAddress);
+        assetCache.put(symbol, asset);
+        return asset;
+    }
+
+    public static boolean isSupported(String symbol) {
+        enterScope();
+        return assetCache.containsKey(symbol) || symbolMap.get(symbol) != null;
+    }
+
+    public static List<String> getAssetSymbols() {
+        enterScope();
+        if (assetSymbolsCache == null) {
+            assetSymbolsCache = load(assetSymbols);
+        }
+        return assetSymbolsCache;
+    }
+
+    public static List<String> getActiveAssetSymbols() {
+        enterScope();
+        if (activeAssetsCache == null) {
+            activeAssetsCache = load(activeAssets);
+        }
+        return activeAssetsCache;
+    }
+
+    public static List<String> getActiveCollateralSymbols() {
+        enterScope();
+        if (activeCollateralCache == null) {
+            activeCollateralCache = load(activeCollateral);
+        }
+        return activeCollateralCache;
+    }
+
+    private static List<String> load(ArrayDB<String> symbols) {
+        int symbolsCount = symbols.size();
+        List<String> values = new ArrayList<>(symbolsCount);
+        for (int i = 0; i < symbolsCount; i++) {
+            values.add(symbols.get(i));
+        }
+        return values;
     }
 
     public static Map<String, String> getAssetSymbolsAndAddress() {
-        int totalSymbolsCount = assetSymbols.size();
         Map<String, String> assets = new HashMap<>();
-        for (int i = 0; i < totalSymbolsCount; i++) {
-            String symbol = assetSymbols.get(i);
+        for (String symbol : getAssetSymbols()) {
             assets.put(symbol, symbolMap.get(symbol));
         }
         return assets;
     }
 
     public static Map<String, Map<String, Object>> getActiveAssets() {
-        int totalActiveAssetsCount = activeAssets.size();
         Map<String, Map<String, Object>> assets = new HashMap<>();
-        for (int i = 0; i < totalActiveAssetsCount; i++) {
-            String symbol = activeAssets.get(i);
+        for (String symbol : getActiveAssetSymbols()) {
             assets.put(symbol, getAsset(symbol).toMap());
         }
         return assets;
@@ -74,12 +151,8 @@ public class AssetDB {
 
     public static Map<String, BigInteger> getAssetPrices() {
         Map<String, BigInteger> assets = new HashMap<>();
-        int totalActiveAssetsCount = activeAssets.size();
-        for (int i = 0; i < totalActiveAssetsCount; i++) {
-            String symbol = activeAssets.get(i);
-            Address assetAddress = getAsset(symbol).getAssetAddress();
-            Token assetContract = new Token(assetAddress);
-            BigInteger lastPrice = assetContract.lastPriceInLoop();
+        for (String symbol : getActiveAssetSymbols()) {
+            BigInteger lastPrice = PriceCache.getLastPrice(getAsset(symbol).getAssetAddress());
             assets.put(symbol, lastPrice);
         }
         return assets;
@@ -112,14 +185,18 @@ public class AssetDB {
         if (collateral) {
             collateralList.add(symbol);
         }
+
+        enterScope();
+        assetCache.put(symbol, asset);
+        assetSymbolsCache = null;
+        activeAssetsCache = null;
+        activeCollateralCache = null;
     }
 
     public static List<String> getDeadMarkets() {
         List<String> deadAssets = new ArrayList<>();
 
-        int activeAssetsCount = activeAssets.size();
-        for (int i = 0; i < activeAssetsCount; i++) {
-            String symbol = activeAssets.get(i);
+        for (String symbol : getActiveAssetSymbols()) {
             Asset asset = getAsset(symbol);
             if (asset.isDeadMarket()) {
                 deadAssets.add(symbol);
@@ -140,25 +217,42 @@ public class AssetDB {
 
     public static BigInteger getTotalCollateral() {
         BigInteger totalCollateral = BigInteger.ZERO;
-        int activeCollateralCount = activeCollateral.size();
-        for (int i = 0; i < activeCollateralCount; i++) {
-            String symbol = activeCollateral.get(i);
+        for (String symbol : getActiveCollateralSymbols()) {
             Asset asset = getAsset(symbol);
             Address assetAddress = asset.getAssetAddress();
             Token assetContract = new Token(assetAddress);
-            BigInteger value = assetContract.balanceOf(Context.getAddress()).multiply(assetContract.lastPriceInLoop());
+            BigInteger value = assetContract.balanceOf(Context.getAddress()).multiply(PriceCache.getLastPrice(assetAddress));
             totalCollateral = totalCollateral.add(value);
         }
 
         return totalCollateral.divide(EXA);
     }
 
+    /**
+     * Returns the value in loop of the collateral held by Loans, read from the running collateral totals instead of
+     * the token balances. sICX in liquidation pools is included. Only complete once all positions are migrated.
+     */
+    public static BigInteger getTrackedCollateral() {
+        BigInteger totalCollateral = BigInteger.ZERO;
+        for (String symbol : getActiveCollateralSymbols()) {
+            BigInteger amount = LoansVariables.totalCollateral.getOrDefault(symbol, BigInteger.ZERO);
+            if (symbol.equals(SICX_SYMBOL)) {
+                for (String assetSymbol : getActiveAssetSymbols()) {
+                    amount = amount.add(getAsset(assetSymbol).getLiquidationPool());
+                }
+            }
+
+            Address assetAddress = getAsset(symbol).getAssetAddress();
+            totalCollateral = totalCollateral.add(amount.multiply(PriceCache.getLastPrice(assetAddress)));
+        }
+
+        return totalCollateral.divide(EXA);
+    }
+
     public static void updateDeadMarkets() {
-        int activeAssetsCount = activeAssets.size();
-        for (int i = 0; i < activeAssetsCount; i++) {
-            String symbol = activeAssets.get(i);
+        for (String symbol : getActiveAssetSymbols()) {
             Asset asset = getAsset(symbol);
-            asset.checkForDeadMarket();
+            asset.updateDeadMarket();
         }
     }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.asset;
+
+import network.balanced.score.core.loans.utils.Token;
+import network.balanced.score.core.loans.utils.TransactionScope;
+import score.Address;
+import scorex.util.HashMap;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Resolves asset prices in loop. Every price is requested from the asset contract at most once per transaction,
+ * after which all positions and assets share the same value. Swaps made by Loans itself move the prices, so the cache
+ * is cleared after each of them, and when the transaction leaves the contract.
+ */
+public class PriceCache {
+    private static final TransactionScope scope = new TransactionScope();
+    private static final Map<Address, BigInteger> prices = new HashMap<>();
+    private static final Map<Address, BigInteger> lastPrices = new HashMap<>();
+
+    private static void enterScope() {
+        if (scope.enter()) {
+            prices.clear();
+            lastPrices.clear();
+        }
+    }
+
+    /**
+     * Drops all cached prices, so that the next request fetches them from the asset contracts again.
+     */
+    public static void clearCache() {
+        scope.reset();
+        prices.clear();
+        lastPrices.clear();
+    }
+
+    /**
+     * Returns the current price of an asset, updating the price in the asset contract on the first request of the
+     * transaction.
+     */
+    public static BigInteger getPrice(Address assetAddress) {
+        enterScope();
+        BigInteger price = prices.get(assetAddress);
+        if (price == null) {
+            price = new Token(assetAddress).priceInLoop();
+            prices.put(assetAddress, price);
+        }
+        return price;
+    }
+
+    /**
+     * Returns the last price of an asset without updating it. A price already updated in this transaction is
+     * returned as is.
+     */
+    public static BigInteger getLastPrice(Address assetAddress) {
+        enterScope();
+        BigInteger price = prices.get(assetAddress);
+        if (price != null) {
+            return price;
+        }
+
+        price = lastPrices.get(assetAddress);
+        if (price == null) {
+            price = new Token(assetAddress).lastPriceInLoop();
+            lastPrices.put(assetAddress, price);
+        }
+        return price;
+    }
+
+    public static BigInteger getPrice(String symbol) {
+        return getPrice(AssetDB.getAsset(symbol).getAssetAddress());
+    }
+
+    public static BigInteger getPrice(String symbol, boolean readOnly) {
+        Address assetAddress = AssetDB.getAsset(symbol).getAssetAddress();
+        if (readOnly) {
+            return getLastPrice(assetAddress);
+        }
+        return getPrice(assetAddress);
+    }
+}
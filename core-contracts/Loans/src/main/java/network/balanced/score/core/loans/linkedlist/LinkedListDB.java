@@ -18,23 +18,54 @@ package network.balanced.score.core.loans.linkedlist;
 
 import score.Context;
 import score.VarDB;
+import scorex.util.HashMap;
 
 import java.math.BigInteger;
+import java.util.Map;
 
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.INT_SIZE;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.readInt;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.writeInt;
+
+/**
+ * Doubly linked list of values keyed by id. The metadata of a list tells in which format its nodes are stored: lists
+ * written in the former string format stay in it until they are migrated, lists being migrated store the number of
+ * nodes still to convert after head, tail and size, and all other lists store their nodes in the byte layout.
+ */
 public class LinkedListDB {
     private final static String _NAME = "_LINKED_LISTDB";
+    static final int BYTES_FORMAT = 0;
+    static final int LEGACY_FORMAT = 1;
+    static final int MIGRATING_FORMAT = 2;
+    private static int nodeReads = 0;
+    private static int nodeWrites = 0;
+
     private final String name;
     private final String dbKey;
+    private final VarDB<byte[]> metadataBytes;
     private final VarDB<String> metadata;
-    private String dataString;
+    private final VarDB<Integer> cursor;
+    private final VarDB<Integer> migrationCursor;
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private boolean batch;
+    private int format;
+    private int storedFormat;
+    private int storedHeadId;
+    private int storedTailId;
+    private int storedSize;
+    private int storedLegacyNodes;
     private int headId;
     private int tailId;
     private int size;
+    private int legacyNodes;
 
     public LinkedListDB(String dbName) {
         name = dbName + _NAME;
         dbKey = "";
+        metadataBytes = Context.newVarDB(name + "_metadata_bytes", byte[].class);
         metadata = Context.newVarDB(name + "_metadata", String.class);
+        cursor = Context.newVarDB(name + "_cursor", Integer.class);
+        migrationCursor = Context.newVarDB(name + "_migration_cursor", Integer.class);
         initialize();
     }
 
@@ -42,20 +73,44 @@ public class LinkedListDB {
     public LinkedListDB(String dbName, String key) {
         name = dbName + _NAME;
         dbKey = key;
+        metadataBytes = (VarDB<byte[]>) Context.newBranchDB(name + "_metadata_bytes", byte[].class).at(dbKey);
         metadata = (VarDB<String>) Context.newBranchDB(name + "_metadata", String.class).at(dbKey);
+        cursor = (VarDB<Integer>) Context.newBranchDB(name + "_cursor", Integer.class).at(dbKey);
+        migrationCursor = (VarDB<Integer>) Context.newBranchDB(name + "_migration_cursor", Integer.class).at(dbKey);
         initialize();
     }
 
     private void initialize() {
-        dataString = metadata.get();
+        byte[] data = metadataBytes.get();
+        if (data != null) {
+            headId = readInt(data, 0);
+            tailId = readInt(data, INT_SIZE);
+            size = readInt(data, 2 * INT_SIZE);
+            if (data.length > 3 * INT_SIZE) {
+                format = MIGRATING_FORMAT;
+                legacyNodes = readInt(data, 3 * INT_SIZE);
+            }
+        } else {
+            initializeLegacy();
+        }
+
+        storedFormat = format;
+        storedHeadId = headId;
+        storedTailId = tailId;
+        storedSize = size;
+        storedLegacyNodes = legacyNodes;
+    }
+
+    private void initializeLegacy() {
+        String dataString = metadata.get();
         if (dataString == null || dataString.isEmpty()) {
-            dataString = "";
             headId = 0;
             tailId = 0;
             size = 0;
             return;
         }
 
+        format = LEGACY_FORMAT;
         int delimiter1 = dataString.indexOf("|");
         int delimiter2 = dataString.lastIndexOf("|");
 
@@ -64,11 +119,110 @@ public class LinkedListDB {
         size = Integer.parseInt(dataString.substring(delimiter2 + 1));
     }
 
-    public void serialize() {
-        String newData = headId + "|" + tailId + "|" + size;
-        if (!newData.equals(dataString)) {
-            dataString = newData;
-            metadata.set(newData);
+    private void serialize() {
+        if (format == storedFormat && headId == storedHeadId && tailId == storedTailId && size == storedSize
+                && legacyNodes == storedLegacyNodes) {
+            return;
+        }
+
+        if (format == LEGACY_FORMAT) {
+            metadata.set(headId + "|" + tailId + "|" + size);
+        } else if (size == 0) {
+            metadataBytes.set(null);
+        } else {
+            byte[] data = new byte[(format == MIGRATING_FORMAT ? 4 : 3) * INT_SIZE];
+            writeInt(data, 0, headId);
+            writeInt(data, INT_SIZE, tailId);
+            writeInt(data, 2 * INT_SIZE, size);
+            if (format == MIGRATING_FORMAT) {
+                writeInt(data, 3 * INT_SIZE, legacyNodes);
+            }
+            metadataBytes.set(data);
+        }
+
+        if (storedFormat == LEGACY_FORMAT && format != LEGACY_FORMAT) {
+            metadata.set(null);
+        }
+
+        storedFormat = format;
+        storedHeadId = headId;
+        storedTailId = tailId;
+        storedSize = size;
+        storedLegacyNodes = legacyNodes;
+    }
+
+    /**
+     * Defers all node and metadata writes of this list until flush is called, so that a node touched by several
+     * operations is only written once.
+     */
+    public void startBatch() {
+        batch = true;
+    }
+
+    /**
+     * Writes the nodes modified since the last flush and the list metadata if it changed, and ends a batch started
+     * with startBatch. Nodes and metadata that were only read are not written, even if they are stored in the legacy
+     * format.
+     */
+    public void flush() {
+        for (Node node : nodes.values()) {
+            boolean legacyNode = node.isLegacy();
+            if (node.repack()) {
+                nodeWrites++;
+                if (format == MIGRATING_FORMAT && legacyNode && !node.isLegacy()) {
+                    legacyNodes--;
+                }
+            }
+        }
+
+        if (format == MIGRATING_FORMAT && legacyNodes == 0) {
+            format = BYTES_FORMAT;
+        }
+        serialize();
+        batch = false;
+    }
+
+    /**
+     * Converts up to count nodes still stored in the legacy string format to the byte layout, walking the list from
+     * a persisted migration cursor and wrapping from the tail to the head. Nodes modified while the list is being
+     * migrated are converted as well, and the list is migrated once no legacy node is left.
+     *
+     * @param count Maximum number of nodes to visit
+     * @return True if the list is migrated
+     */
+    public boolean migrate(int count) {
+        Context.require(count > 0, name + ": Count must be positive");
+        if (format == LEGACY_FORMAT) {
+            flush();
+            nodes.clear();
+            format = MIGRATING_FORMAT;
+            legacyNodes = size;
+        }
+
+        if (format == MIGRATING_FORMAT) {
+            int id = migrationCursor.getOrDefault(0);
+            if (id == 0 || !contains(id)) {
+                id = headId;
+            }
+
+            int converted = 0;
+            for (int i = 0; i < count && converted < legacyNodes; i++) {
+                Node node = getNode(id);
+                if (node.migrate()) {
+                    converted++;
+                }
+                id = node.getNext() == 0 ? headId : node.getNext();
+            }
+            flush();
+            migrationCursor.set(format == BYTES_FORMAT ? null : id);
+        }
+
+        return format == BYTES_FORMAT;
+    }
+
+    private void commit() {
+        if (!batch) {
+            flush();
         }
     }
 
@@ -77,10 +231,19 @@ public class LinkedListDB {
     }
 
     private Node getNode(int nodeId) {
+        Node node = nodes.get(nodeId);
+        if (node != null) {
+            return node;
+        }
+
         if (!dbKey.equals("")) {
-            return new Node(nodeId + name, dbKey);
+            node = new Node(nodeId + name, dbKey, format);
+        } else {
+            node = new Node(nodeId + name, format);
         }
-        return new Node(nodeId + name);
+        nodeReads++;
+        nodes.put(nodeId, node);
+        return node;
     }
 
     public BigInteger nodeValue(int id) {
@@ -109,7 +272,7 @@ public class LinkedListDB {
     public void set(int id, BigInteger value) {
         Node node = getNode(id);
         node.setValue(value);
-        node.repack();
+        commit();
     }
 
     public void append(BigInteger value, int id) {
@@ -122,14 +285,11 @@ public class LinkedListDB {
         } else {
             Node tail = getNode(tailId);
             tail.setNext(id);
-            tail.repack();
-
             node.setPrev(tailId);
         }
-        node.repack();
         tailId = id;
         size = size + 1;
-        serialize();
+        commit();
     }
 
     public void headToTail() {
@@ -146,20 +306,54 @@ public class LinkedListDB {
 
         // Update node next to head
         headNext.setPrev(0);
-        headNext.repack();
 
         // Update tail node
         tail.setNext(headId);
-        tail.repack();
 
         // Update previous head as new tail
         head.setPrev(tailId);
         head.setNext(0);
-        head.repack();
 
         tailId = headId;
         headId = nextId;
-        serialize();
+        commit();
+    }
+
+    /**
+     * Reads up to count consecutive nodes starting at the rotating cursor, wrapping from the tail to the head, and
+     * moves the cursor past them. Unlike headToTail, the nodes themselves are not rewritten.
+     *
+     * @param count Maximum number of nodes to read
+     * @return Values of the nodes read, by node id
+     */
+    public Map<Integer, BigInteger> readFromCursor(int count) {
+        Map<Integer, BigInteger> values = new HashMap<>();
+        int iterations = Math.min(count, size);
+        if (iterations == 0) {
+            return values;
+        }
+
+        int id = cursor.getOrDefault(0);
+        Node node = id == 0 ? null : getNode(id);
+        if (node == null || !node.exists()) {
+            id = headId;
+            node = getNode(id);
+        }
+
+        for (int i = 0; i < iterations; i++) {
+            values.put(id, node.getValue());
+            id = node.getNext();
+            if (id == 0) {
+                id = headId;
+            }
+
+            if (i < iterations - 1) {
+                node = getNode(id);
+            }
+        }
+
+        cursor.set(id);
+        return values;
     }
 
     private void removeHead() {
@@ -170,7 +364,6 @@ public class LinkedListDB {
         headId = newHeadId;
 
         newHead.setPrev(0);
-        newHead.repack();
 
         oldHead.delete();
         size = size - 1;
@@ -184,7 +377,6 @@ public class LinkedListDB {
         tailId = newTailId;
 
         newTail.setNext(0);
-        newTail.repack();
 
         oldTail.delete();
         size = size - 1;
@@ -199,25 +391,29 @@ public class LinkedListDB {
         Node prevNode = getNode(prevId);
 
         nextNode.setPrev(prevId);
-        nextNode.repack();
-
         prevNode.setNext(nextId);
-        prevNode.repack();
 
         node.delete();
         size = size - 1;
     }
 
+    /**
+     * Removes a node from the list. If the rotating cursor of readFromCursor points at the removed node, it is moved
+     * to the next node, or back to the head when the removed node was the tail.
+     *
+     * @param id Id of the node to remove
+     */
     public void remove(int id) {
+        Integer cursorId = cursor.get();
+        boolean movesCursor = cursorId != null && cursorId == id;
+        int nextId = movesCursor ? getNode(id).getNext() : 0;
+
         if (size == 1) {
             Node singleNode = getNode(id);
             tailId = 0;
             headId = 0;
             size = 0;
             singleNode.delete();
-            dataString = "";
-            metadata.set(null);
-            return;
         } else if (id == headId) {
             removeHead();
         } else if (id == tailId) {
@@ -225,7 +421,25 @@ public class LinkedListDB {
         } else {
             removeMiddleNode(id);
         }
-        serialize();
+
+        if (movesCursor) {
+            int cursorNext = nextId == 0 ? headId : nextId;
+            cursor.set(cursorNext == 0 ? null : cursorNext);
+        }
+        commit();
     }
 
+    /**
+     * Returns the number of nodes loaded from storage since deployment, used to verify batch operations.
+     */
+    public static int getNodeReads() {
+        return nodeReads;
+    }
+
+    /**
+     * Returns the number of node writes since deployment, used to verify batch operations.
+     */
+    public static int getNodeWrites() {
+        return nodeWrites;
+    }
 }
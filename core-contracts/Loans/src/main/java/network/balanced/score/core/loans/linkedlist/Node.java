@@ -21,38 +21,78 @@ import score.VarDB;
 
 import java.math.BigInteger;
 
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.INT_SIZE;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.readInt;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.writeInt;
+
+/**
+ * Node of a LinkedListDB, stored as next and prev ids followed by the value bytes. Lists created before the byte
+ * layout keep their nodes in the former "value|next|prev" string format until they are migrated. The format of the
+ * list tells the node which of the two entries to read, so only nodes of a list that is being migrated may need both.
+ */
 public class Node {
 
     private final String _NAME = "_Node";
     private final String name;
+    private final VarDB<byte[]> nodeBytes;
     private final VarDB<String> nodeData;
-    private String dataString;
+    private final int format;
+    private boolean exists;
+    private boolean legacy;
+    private boolean dirty;
     private BigInteger value;
     private int next;
     private int prev;
 
-    Node(String dbName) {
+    Node(String dbName, int format) {
         name = dbName + _NAME;
+        this.format = format;
+        nodeBytes = Context.newVarDB(name + "_node_bytes", byte[].class);
         nodeData = Context.newVarDB(name + "_node_data", String.class);
         initialize();
     }
 
     @SuppressWarnings("unchecked")
-    Node(String dbName, String key) {
+    Node(String dbName, String key, int format) {
         name = dbName + _NAME;
+        this.format = format;
+        nodeBytes = (VarDB<byte[]>) Context.newBranchDB(name + "_node_bytes", byte[].class).at(key);
         nodeData = (VarDB<String>) Context.newBranchDB(name + "_node_data", String.class).at(key);
         initialize();
     }
 
     private void initialize() {
-        dataString = nodeData.get();
+        value = BigInteger.ZERO;
+        next = 0;
+        prev = 0;
+        legacy = format == LinkedListDB.LEGACY_FORMAT;
+
+        if (format != LinkedListDB.LEGACY_FORMAT) {
+            byte[] data = nodeBytes.get();
+            if (data != null) {
+                exists = true;
+                next = readInt(data, 0);
+                prev = readInt(data, INT_SIZE);
+                byte[] valueBytes = new byte[data.length - 2 * INT_SIZE];
+                System.arraycopy(data, 2 * INT_SIZE, valueBytes, 0, valueBytes.length);
+                value = new BigInteger(valueBytes);
+                return;
+            }
+        }
+
+        if (format != LinkedListDB.BYTES_FORMAT) {
+            initializeLegacy();
+        }
+    }
+
+    private void initializeLegacy() {
+        String dataString = nodeData.get();
         if (dataString == null || dataString.isEmpty()) {
-            value = BigInteger.ZERO;
-            next = 0;
-            prev = 0;
             return;
         }
 
+        exists = true;
+        legacy = true;
         int delimiter1 = dataString.indexOf("|");
         int delimiter2 = dataString.lastIndexOf("|");
         value = new BigInteger(dataString.substring(0, delimiter1));
@@ -60,24 +100,78 @@ public class Node {
         prev = Integer.parseInt(dataString.substring(delimiter2 + 1));
     }
 
-    void repack() {
-        String newData = value.toString() + "|" + next + "|" + prev;
-        if (!newData.equals(dataString)) {
-            dataString = newData;
-            nodeData.set(newData);
+    /**
+     * Writes the node if it was modified since it was loaded or last written. Nodes of a list that is not migrated
+     * yet are written in the legacy format. Otherwise a node still stored in the legacy format is written in the byte
+     * layout and its legacy entry is removed.
+     *
+     * @return True if the node was written
+     */
+    boolean repack() {
+        if (!dirty) {
+            return false;
+        }
+
+        dirty = false;
+        if (format == LinkedListDB.LEGACY_FORMAT) {
+            nodeData.set(exists ? value + "|" + next + "|" + prev : null);
+            return true;
+        }
+
+        if (legacy) {
+            nodeData.set(null);
+            legacy = false;
+            if (!exists) {
+                return true;
+            }
+        }
+
+        if (!exists) {
+            nodeBytes.set(null);
+            return true;
+        }
+
+        byte[] valueBytes = value.toByteArray();
+        byte[] data = new byte[2 * INT_SIZE + valueBytes.length];
+        writeInt(data, 0, next);
+        writeInt(data, INT_SIZE, prev);
+        System.arraycopy(valueBytes, 0, data, 2 * INT_SIZE, valueBytes.length);
+        nodeBytes.set(data);
+        return true;
+    }
+
+    /**
+     * Marks a node still stored in the legacy format to be written in the byte layout on the next repack.
+     *
+     * @return True if the node is stored in the legacy format
+     */
+    boolean migrate() {
+        if (!legacy || format == LinkedListDB.LEGACY_FORMAT) {
+            return false;
         }
+
+        dirty = true;
+        return true;
+    }
+
+    boolean isLegacy() {
+        return legacy;
     }
 
     void delete() {
+        if (!exists) {
+            return;
+        }
+
         value = BigInteger.ZERO;
         next = 0;
         prev = 0;
-        dataString = null;
-        nodeData.set(null);
+        exists = false;
+        dirty = true;
     }
 
     boolean exists() {
-        return dataString != null && !dataString.isEmpty();
+        return exists;
     }
 
     BigInteger getValue() {
@@ -85,7 +179,11 @@ public class Node {
     }
 
     void setValue(BigInteger value) {
-        this.value = value;
+        if (!exists || !this.value.equals(value)) {
+            this.value = value;
+            exists = true;
+            dirty = true;
+        }
     }
 
     int getNext() {
@@ -93,7 +191,11 @@ public class Node {
     }
 
     void setNext(int nextId) {
-        next = nextId;
+        if (!exists || next != nextId) {
+            next = nextId;
+            exists = true;
+            dirty = true;
+        }
     }
 
     int getPrev() {
@@ -101,6 +203,10 @@ public class Node {
     }
 
     void setPrev(int prevId) {
-        prev = prevId;
+        if (!exists || prev != prevId) {
+            prev = prevId;
+            exists = true;
+            dirty = true;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.positions;
+
+import network.balanced.score.lib.utils.EnumerableSetDB;
+import score.Context;
+import score.DictDB;
+import score.VarDB;
+import scorex.util.ArrayList;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+import static network.balanced.score.core.loans.LoansVariables.liquidationRatio;
+import static network.balanced.score.core.loans.utils.LoansConstants.EXA;
+import static network.balanced.score.core.loans.utils.LoansConstants.POINTS;
+
+/**
+ * Index of positions with bnUSD debt, bucketed by their debt per sICX collateral. The ratio does not depend on
+ * prices, so a position only moves between buckets when its collateral or debt changes. Buckets split every power of
+ * two into 16 steps, which keeps them ordered by ratio while the number of buckets stays small. Non-empty buckets are
+ * tracked in a bitmap per group of 64 buckets and a bitmap of non-empty groups, so the next non-empty bucket is found
+ * with at most three reads however many empty buckets lie in between.
+ */
+public class LiquidationIndex {
+    private static final String RATIOS = "liquidation_index_ratios";
+    private static final String GROUPS = "liquidation_index_groups";
+    private static final String GROUP_MASK = "liquidation_index_group_mask";
+    private static final String BUCKET = "liquidation_index_bucket";
+    private static final int MANTISSA_BITS = 4;
+    private static final int GROUP_BITS = 6;
+    public static final int MAX_CANDIDATES = 100;
+
+    private static final DictDB<Integer, BigInteger> ratios = Context.newDictDB(RATIOS, BigInteger.class);
+    private static final DictDB<Integer, BigInteger> groups = Context.newDictDB(GROUPS, BigInteger.class);
+    private static final VarDB<BigInteger> groupMask = Context.newVarDB(GROUP_MASK, BigInteger.class);
+
+    private static EnumerableSetDB<Integer> getBucket(int bucket) {
+        return new EnumerableSetDB<>(BUCKET + "|" + bucket, Integer.class);
+    }
+
+    static int bucketOf(BigInteger ratio) {
+        int bitLength = ratio.bitLength();
+        int shift = bitLength - MANTISSA_BITS - 1;
+        BigInteger mantissa = shift >= 0 ? ratio.shiftRight(shift) : ratio.shiftLeft(-shift);
+        return (bitLength << MANTISSA_BITS) | (mantissa.intValue() & ((1 << MANTISSA_BITS) - 1));
+    }
+
+    private static void markBucket(int bucket, boolean nonEmpty) {
+        int group = bucket >> GROUP_BITS;
+        int bit = bucket & ((1 << GROUP_BITS) - 1);
+        BigInteger mask = groups.getOrDefault(group, BigInteger.ZERO);
+        BigInteger newMask = nonEmpty ? mask.setBit(bit) : mask.clearBit(bit);
+        groups.set(group, newMask.signum() == 0 ? null : newMask);
+
+        if (mask.signum() == 0 || newMask.signum() == 0) {
+            BigInteger topMask = groupMask.getOrDefault(BigInteger.ZERO);
+            BigInteger newTopMask = nonEmpty ? topMask.setBit(group) : topMask.clearBit(group);
+            groupMask.set(newTopMask.signum() == 0 ? null : newTopMask);
+        }
+    }
+
+    private static int highestBucket(BigInteger topMask) {
+        if (topMask.signum() == 0) {
+            return -1;
+        }
+
+        int group = topMask.bitLength() - 1;
+        return (group << GROUP_BITS) + groups.get(group).bitLength() - 1;
+    }
+
+    /**
+     * Returns the highest non-empty bucket that is not above the given bucket, or -1 if there is none.
+     */
+    private static int floorBucket(int bucket) {
+        if (bucket < 0) {
+            return -1;
+        }
+
+        int group = bucket >> GROUP_BITS;
+        int bit = bucket & ((1 << GROUP_BITS) - 1);
+        BigInteger mask = groups.getOrDefault(group, BigInteger.ZERO);
+        BigInteger lowerBuckets = mask.and(BigInteger.ONE.shiftLeft(bit + 1).subtract(BigInteger.ONE));
+        if (lowerBuckets.signum() != 0) {
+            return (group << GROUP_BITS) + lowerBuckets.bitLength() - 1;
+        }
+
+        BigInteger topMask = groupMask.getOrDefault(BigInteger.ZERO);
+        return highestBucket(topMask.and(BigInteger.ONE.shiftLeft(group).subtract(BigInteger.ONE)));
+    }
+
+    /**
+     * Moves a position to the bucket matching its current collateral and debt, removing it once it has no debt.
+     */
+    static void update(int id, BigInteger collateral, BigInteger debt) {
+        BigInteger oldRatio = ratios.get(id);
+        BigInteger newRatio = null;
+        if (debt.signum() > 0) {
+            newRatio = debt.multiply(EXA).divide(collateral.max(BigInteger.ONE));
+        }
+
+        if (newRatio == null ? oldRatio == null : newRatio.equals(oldRatio)) {
+            return;
+        }
+
+        ratios.set(id, newRatio);
+        int oldBucket = oldRatio == null ? -1 : bucketOf(oldRatio);
+        int newBucket = newRatio == null ? -1 : bucketOf(newRatio);
+        if (oldBucket == newBucket) {
+            return;
+        }
+
+        if (newBucket != -1) {
+            EnumerableSetDB<Integer> bucket = getBucket(newBucket);
+            if (bucket.length() == 0) {
+                markBucket(newBucket, true);
+            }
+            bucket.add(id);
+        }
+
+        if (oldBucket != -1) {
+            EnumerableSetDB<Integer> bucket = getBucket(oldBucket);
+            bucket.remove(id);
+            if (bucket.length() == 0) {
+                markBucket(oldBucket, false);
+            }
+        }
+    }
+
+    /**
+     * Returns the positions that can be liquidated at the given sICX price, most undercollateralized buckets first.
+     *
+     * @param price Price of sICX in bnUSD
+     * @param limit Maximum number of positions to return, at most MAX_CANDIDATES
+     * @return Id, address and debt per collateral of each candidate
+     */
+    public static List<Map<String, Object>> getCandidates(BigInteger price, int limit) {
+        Context.require(price.signum() > 0, Position.TAG + ": Price must be positive.");
+        Context.require(limit > 0 && limit <= MAX_CANDIDATES, Position.TAG + ": Limit must be between 1 and " +
+                MAX_CANDIDATES + ".");
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        BigInteger threshold = price.multiply(POINTS).divide(liquidationRatio.get());
+        int thresholdBucket = bucketOf(threshold);
+
+        int bucketId = highestBucket(groupMask.getOrDefault(BigInteger.ZERO));
+        for (; bucketId >= thresholdBucket; bucketId = floorBucket(bucketId - 1)) {
+            EnumerableSetDB<Integer> bucket = getBucket(bucketId);
+            int size = bucket.length();
+            for (int i = 0; i < size; i++) {
+                if (candidates.size() == limit) {
+                    return candidates;
+                }
+
+                int id = bucket.at(i);
+                BigInteger ratio = ratios.get(id);
+                if (bucketId == thresholdBucket && ratio.compareTo(threshold) < 0) {
+                    continue;
+                }
+
+                candidates.add(Map.of(
+                        "pos_id", id,
+                        "address", PositionsDB.get(id).getAddress(),
+                        "debt_per_collateral", ratio
+                ));
+            }
+        }
+
+        return candidates;
+    }
+}
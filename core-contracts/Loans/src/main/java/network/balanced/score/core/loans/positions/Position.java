@@ -20,9 +20,11 @@ import network.balanced.score.core.loans.LoansImpl;
 import network.balanced.score.core.loans.LoansVariables;
 import network.balanced.score.core.loans.asset.Asset;
 import network.balanced.score.core.loans.asset.AssetDB;
+import network.balanced.score.core.loans.asset.PriceCache;
 import network.balanced.score.core.loans.snapshot.SnapshotDB;
+import network.balanced.score.core.loans.utils.DayIndexDB;
+import network.balanced.score.core.loans.utils.PruneCounter;
 import network.balanced.score.core.loans.utils.Standing;
-import network.balanced.score.core.loans.utils.Token;
 import score.*;
 import scorex.util.HashMap;
 
@@ -31,8 +33,8 @@ import java.util.Map;
 
 import static network.balanced.score.core.loans.LoansVariables.*;
 import static network.balanced.score.core.loans.utils.Checks.isBeforeContinuousRewardDay;
+import static network.balanced.score.core.loans.utils.Checks.isLegacyFree;
 import static network.balanced.score.core.loans.utils.LoansConstants.*;
-import static network.balanced.score.lib.utils.ArrayDBUtils.arrayDbContains;
 
 public class Position {
 
@@ -49,8 +51,14 @@ public class Position {
             "loan_balance", BigInteger.class);
     private final BranchDB<String, DictDB<String, BigInteger>> collateralPosition = Context.newBranchDB("collateral_balance"
             , BigInteger.class);
+    private final BranchDB<String, VarDB<String>> packedPosition = Context.newBranchDB("packed_position", String.class);
+    private final BranchDB<String, VarDB<String>> snapBounds = Context.newBranchDB("snap_bounds", String.class);
 
     private final String dbKey;
+    private String packedData;
+    private Map<String, BigInteger> amounts;
+    private Map<String, BigInteger> unmigratedTotals;
+    private DayIndexDB snapIndex;
 
     Position(String dbKey) {
         this.dbKey = dbKey;
@@ -80,16 +88,23 @@ public class Position {
         return address.at(dbKey).get();
     }
 
+    private DayIndexDB getSnapIndex() {
+        if (snapIndex == null) {
+            snapIndex = new DayIndexDB(snaps.at(dbKey), snapBounds.at(dbKey));
+        }
+        return snapIndex;
+    }
+
     void addSnaps(Integer value) {
-        snaps.at(dbKey).add(value);
+        getSnapIndex().add(value);
     }
 
     Integer getSnaps(Integer index) {
-        return snaps.at(dbKey).get(index);
+        return getSnapIndex().get(index);
     }
 
-    private Integer getSnapsSize() {
-        return snaps.at(dbKey).size();
+    Integer getSnapsSize() {
+        return getSnapIndex().size();
     }
 
     public BigInteger getAssets(Integer snapID, String symbol) {
@@ -100,75 +115,219 @@ public class Position {
         assets.at(dbKey).at(snapID).set(symbol, value);
     }
 
-    public void setDataMigrationStatus(String symbol, Boolean value) {
-        dataMigrationStatus.at(dbKey).set(symbol, value);
+    /**
+     * Deletes the asset amounts stored for one of the snapshots of this position. The last snapshot is never pruned,
+     * since positions that were never migrated are converted from it.
+     */
+    void pruneAssets(int index, PruneCounter counter) {
+        Context.require(index < getSnapsSize() - 1, TAG + ": The last snapshot of a position can not be pruned.");
+        DictDB<String, BigInteger> snapshotAssets = assets.at(dbKey).at(getSnaps(index));
+        for (String symbol : AssetDB.getAssetSymbols()) {
+            counter.remove(snapshotAssets, symbol);
+        }
     }
 
-    public Boolean getDataMigrationStatus(String symbol) {
-        return dataMigrationStatus.at(dbKey).getOrDefault(symbol, false);
+    /**
+     * Loads the live collateral and debt amounts of the position. They are stored packed in a single record as
+     * "symbol:amount|symbol:amount", collateral first. A position without a packed record is converted from the
+     * per-symbol balances, or from its last snapshot for symbols that were never migrated; the converted record is
+     * stored on the next write. In legacy free mode every position has a packed record, so no conversion is tried.
+     */
+    private Map<String, BigInteger> getAmounts() {
+        if (amounts != null) {
+            return amounts;
+        }
+
+        amounts = new HashMap<>();
+        packedData = packedPosition.at(dbKey).get();
+        if (packedData != null) {
+            unpack(packedData);
+            return amounts;
+        }
+
+        if (isLegacyFree()) {
+            return amounts;
+        }
+
+        unmigratedTotals = new HashMap<>();
+        int lastSnap = lastSnap();
+        for (String symbol : AssetDB.getAssetSymbols()) {
+            boolean collateral = AssetDB.getAsset(symbol).isCollateral();
+            BigInteger amount;
+            if (dataMigrationStatus.at(dbKey).getOrDefault(symbol, false)) {
+                if (collateral) {
+                    amount = collateralPosition.at(dbKey).getOrDefault(symbol, BigInteger.ZERO);
+                } else {
+                    amount = loansPosition.at(dbKey).at(SICX_SYMBOL).getOrDefault(symbol, BigInteger.ZERO);
+                }
+            } else {
+                amount = getAssets(lastSnap, symbol);
+                if (!collateral && amount.signum() > 0) {
+                    unmigratedTotals.put(symbol, amount);
+                }
+            }
+
+            if (amount.signum() > 0) {
+                amounts.put(symbol, amount);
+                if (collateral) {
+                    unmigratedTotals.put(symbol, amount);
+                }
+            }
+        }
+
+        return amounts;
     }
 
-    public void setLoansPosition(String collateral, String symbol, BigInteger value) {
-        loansPosition.at(dbKey).at(collateral).set(symbol, value);
+    private void unpack(String data) {
+        int start = 0;
+        while (start < data.length()) {
+            int end = data.indexOf("|", start);
+            if (end == -1) {
+                end = data.length();
+            }
+
+            int delimiter = data.indexOf(":", start);
+            BigInteger amount = new BigInteger(data.substring(delimiter + 1, end));
+            if (amount.signum() > 0) {
+                amounts.put(data.substring(start, delimiter), amount);
+            }
+            start = end + 1;
+        }
     }
 
-    public BigInteger getLoansPosition(String collateral, String symbol) {
-        return loansPosition.at(dbKey).at(collateral).getOrDefault(symbol, BigInteger.ZERO);
+    private void repack() {
+        StringBuilder data = new StringBuilder(SICX_SYMBOL + ":" + amounts.getOrDefault(SICX_SYMBOL, BigInteger.ZERO));
+        for (String symbol : AssetDB.getAssetSymbols()) {
+            BigInteger amount = amounts.get(symbol);
+            if (!symbol.equals(SICX_SYMBOL) && amount != null) {
+                data.append("|").append(symbol).append(":").append(amount);
+            }
+        }
+
+        if (unmigratedTotals != null) {
+            addToTotals(unmigratedTotals);
+            unmigratedTotals = null;
+        }
+
+        String newData = data.toString();
+        if (!newData.equals(packedData)) {
+            packedData = newData;
+            packedPosition.at(dbKey).set(newData);
+            LiquidationIndex.update(getId(), getAmount(SICX_SYMBOL), getAmount(BNUSD_SYMBOL));
+        }
+    }
+
+    private void setAmount(String symbol, BigInteger value) {
+        Map<String, BigInteger> amounts = getAmounts();
+        if (value == null || value.signum() == 0) {
+            amounts.remove(symbol);
+        } else {
+            amounts.put(symbol, value);
+        }
+    }
+
+    private BigInteger getAmount(String symbol) {
+        return getAmounts().getOrDefault(symbol, BigInteger.ZERO);
+    }
+
+    /**
+     * Stores the packed record of a position that does not have one yet, adding debts that were only recorded in
+     * snapshots to the total debts and its collateral to the total collateral.
+     */
+    public void migrate() {
+        migrate(null);
+    }
+
+    /**
+     * Stores the packed record of a position like {@link #migrate()}, but adds its unmigrated amounts to the given
+     * totals instead, so that a batch of positions writes the total debts and collateral once.
+     */
+    void migrate(Map<String, BigInteger> totals) {
+        getAmounts();
+        if (totals != null && unmigratedTotals != null) {
+            for (Map.Entry<String, BigInteger> amount : unmigratedTotals.entrySet()) {
+                BigInteger total = totals.getOrDefault(amount.getKey(), BigInteger.ZERO);
+                totals.put(amount.getKey(), total.add(amount.getValue()));
+            }
+            unmigratedTotals = null;
+        }
+        repack();
+    }
+
+    /**
+     * Adds amounts of positions that were not yet counted to the total debts, for debts, or to the total
+     * collateral, for collateral.
+     */
+    static void addToTotals(Map<String, BigInteger> amounts) {
+        for (Map.Entry<String, BigInteger> amount : amounts.entrySet()) {
+            String symbol = amount.getKey();
+            DictDB<String, BigInteger> totals = AssetDB.getAsset(symbol).isCollateral() ?
+                    LoansVariables.totalCollateral : LoansVariables.totalDebts;
+            totals.set(symbol, totals.getOrDefault(symbol, BigInteger.ZERO).add(amount.getValue()));
+        }
+    }
+
+    void initialize() {
+        amounts = new HashMap<>();
+        repack();
+    }
+
+    public Boolean getDataMigrationStatus(String symbol) {
+        if (isLegacyFree() || packedData != null || packedPosition.at(dbKey).get() != null) {
+            return true;
+        }
+        return dataMigrationStatus.at(dbKey).getOrDefault(symbol, false);
     }
 
-    public void setCollateralPosition(String symbol, BigInteger value) {
-        collateralPosition.at(dbKey).set(symbol, value);
+    public BigInteger getLoansPosition(String collateral, String symbol) {
+        if (!collateral.equals(SICX_SYMBOL)) {
+            return BigInteger.ZERO;
+        }
+        return getAmount(symbol);
     }
 
     public BigInteger getCollateralPosition(String symbol) {
-        return collateralPosition.at(dbKey).getOrDefault(symbol, BigInteger.ZERO);
+        return getAmount(symbol);
     }
 
     public BigInteger getAssetPosition(String symbol) {
-        Context.require(arrayDbContains(AssetDB.assetSymbols, symbol), TAG + ": " + symbol + " is not a supported " +
+        Context.require(AssetDB.isSupported(symbol), TAG + ": " + symbol + " is not a supported " +
                 "asset on Balanced.");
 
-        if (isBeforeContinuousRewardDay() || !getDataMigrationStatus(symbol)) {
+        if (isBeforeContinuousRewardDay()) {
             return getAssets(lastSnap(), symbol);
         }
 
         Asset asset = AssetDB.getAsset(symbol);
         Context.require(asset.isActive(), TAG + ": " + symbol + " is not an active asset on Balanced.");
-
-        if (asset.isCollateral()) {
-            return getCollateralPosition(symbol);
-        } else {
-            return getLoansPosition(SICX_SYMBOL, symbol);
-        }
+        return getAmount(symbol);
     }
 
     public void setAssetPosition(String symbol, BigInteger value) {
-        BigInteger previousDebt = BigInteger.ZERO;
+        BigInteger previousValue = getAmount(symbol);
         if (isBeforeContinuousRewardDay()) {
             BigInteger day = checkSnap();
             setAssets(day.intValue(), symbol, value);
         }
 
-        if (!getDataMigrationStatus(symbol)) {
-            setDataMigrationStatus(symbol, true);
-        } else {
-            previousDebt = getLoansPosition(SICX_SYMBOL, symbol);
-        }
+        setAmount(symbol, value);
+        repack();
 
-        if (symbol.equals(SICX_SYMBOL)) {
-            setCollateralPosition(SICX_SYMBOL, value);
-        } else {
-            setLoansPosition(SICX_SYMBOL, symbol, value);
+        Asset asset = AssetDB.getAsset(symbol);
+        if (asset.isCollateral()) {
+            BigInteger previousTotalCollateral = LoansVariables.totalCollateral.getOrDefault(symbol, BigInteger.ZERO);
+            BigInteger currentValue = value == null ? BigInteger.ZERO : value;
+            LoansVariables.totalCollateral.set(symbol, previousTotalCollateral.add(currentValue).subtract(previousValue));
         }
 
-        if (arrayDbContains(AssetDB.activeAssets, symbol)) {
+        if (AssetDB.getActiveAssetSymbols().contains(symbol)) {
             BigInteger previousTotalDebt = LoansVariables.totalDebts.getOrDefault(symbol, BigInteger.ZERO);
             BigInteger currentValue = BigInteger.ZERO;
             if (value != null) {
                 currentValue = value;
             }
 
-            BigInteger newTotalDebt = previousTotalDebt.add(currentValue).subtract(previousDebt);
+            BigInteger newTotalDebt = previousTotalDebt.add(currentValue).subtract(previousValue);
             LoansVariables.totalDebts.set(symbol, newTotalDebt);
             AssetDB.getAsset(symbol).getBorrowers().set(getId(), currentValue);
         }
@@ -188,9 +347,7 @@ public class Position {
 
         addSnaps(day.intValue());
         int previous = getSnaps(getSnapsSize() - 2);
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             if (!getAssets(lastDay, symbol).equals(BigInteger.ZERO)) {
                 BigInteger value = getAssets(previous, symbol);
                 setAssets(day.intValue(), symbol, value);
@@ -208,25 +365,7 @@ public class Position {
             return getSnaps(index);
         }
 
-        int low = 0;
-        int high = getSnapsSize();
-        int middle;
-        while (low < high) {
-            middle = (low + high) / 2;
-            if (getSnaps(middle) > day) {
-                high = middle;
-            } else {
-                low = middle + 1;
-            }
-        }
-
-        if (getSnaps(0) == day.intValue()) {
-            return day;
-        } else if (low == 0) {
-            return -1;
-        }
-
-        return getSnaps(low - 1);
+        return getSnapIndex().floor(day);
     }
 
 
@@ -237,9 +376,7 @@ public class Position {
                 return false;
             }
 
-            int activeAssetsCount = AssetDB.activeAssets.size();
-            for (int i = 0; i < activeAssetsCount; i++) {
-                String symbol = AssetDB.activeAssets.get(i);
+            for (String symbol : AssetDB.getActiveAssetSymbols()) {
                 BigInteger debt = getAssets(id, symbol);
                 if (!debt.equals(BigInteger.ZERO)) {
                     return true;
@@ -249,17 +386,9 @@ public class Position {
             return false;
         }
 
-        int activeAssetsCount = AssetDB.activeAssets.size();
-        for (int i = 0; i < activeAssetsCount; i++) {
-            String symbol = AssetDB.activeAssets.get(i);
-            if (getDataMigrationStatus(symbol)) {
-                if (!getLoansPosition(SICX_SYMBOL, symbol).equals(BigInteger.ZERO)) {
-                    return true;
-                }
-            } else {
-                if (!getAssets(lastSnap(), symbol).equals(BigInteger.ZERO)) {
-                    return true;
-                }
+        for (String symbol : AssetDB.getActiveAssetSymbols()) {
+            if (!getAmount(symbol).equals(BigInteger.ZERO)) {
+                return true;
             }
         }
 
@@ -281,18 +410,11 @@ public class Position {
                 return totalCollateral;
             }
 
-            int activeCollateralCount = AssetDB.activeCollateral.size();
-            for (int i = 0; i < activeCollateralCount; i++) {
-                String symbol = AssetDB.activeCollateral.get(i);
-                Asset asset = AssetDB.getAsset(symbol);
-
-                Address assetAddress = asset.getAssetAddress();
-                Token assetContract = new Token(assetAddress);
-
+            for (String symbol : AssetDB.getActiveCollateralSymbols()) {
                 BigInteger amount = getAssets(id, symbol);
                 BigInteger price;
                 if (day == -1 || day == LoansImpl._getDay().intValue()) {
-                    price = assetContract.priceInLoop();
+                    price = PriceCache.getPrice(symbol);
                 } else {
                     price = SnapshotDB.get(day).getPrices(symbol);
                 }
@@ -303,23 +425,16 @@ public class Position {
             return totalCollateral;
         }
 
-        int activeCollateralCount = AssetDB.activeCollateral.size();
-        for (int i = 0; i < activeCollateralCount; i++) {
-            String symbol = AssetDB.activeCollateral.get(i);
-            Asset asset = AssetDB.getAsset(symbol);
-
-            Address assetAddress = asset.getAssetAddress();
-            Token assetContract = new Token(assetAddress);
-
+        for (String symbol : AssetDB.getActiveCollateralSymbols()) {
             BigInteger amount;
-            if (getDataMigrationStatus(symbol) && day == -1) {
-                amount = getCollateralPosition(symbol);
+            if (day == -1) {
+                amount = getAmount(symbol);
             } else {
                 amount = getAssets(lastSnap(), symbol);
             }
             BigInteger price;
             if (day == -1 || day == LoansImpl._getDay().intValue()) {
-                price = assetContract.priceInLoop();
+                price = PriceCache.getPrice(symbol);
             } else {
                 price = SnapshotDB.get(day).getPrices(symbol);
             }
@@ -347,14 +462,12 @@ public class Position {
                 return totalDebt;
             }
 
-            int activeAssetsCount = AssetDB.activeAssets.size();
-            for (int i = 0; i < activeAssetsCount; i++) {
-                String symbol = AssetDB.activeAssets.get(i);
+            for (String symbol : AssetDB.getActiveAssetSymbols()) {
                 BigInteger amount = getAssets(id, symbol);
                 BigInteger price = BigInteger.ZERO;
                 if (amount.compareTo(BigInteger.ZERO) > 0) {
                     if (day == -1 || day == LoansImpl._getDay().intValue()) {
-                        price = getAssetPrice(symbol, readOnly);
+                        price = PriceCache.getPrice(symbol, readOnly);
                     } else {
                         price = SnapshotDB.get(day).getPrices(symbol);
                     }
@@ -366,13 +479,11 @@ public class Position {
             return totalDebt;
         }
 
-        int activeAssetsCount = AssetDB.activeAssets.size();
-        for (int i = 0; i < activeAssetsCount; i++) {
-            String symbol = AssetDB.activeAssets.get(i);
+        for (String symbol : AssetDB.getActiveAssetSymbols()) {
 
             BigInteger amount;
-            if (getDataMigrationStatus(symbol) && day == -1) {
-                amount = getLoansPosition(SICX_SYMBOL, symbol);
+            if (day == -1) {
+                amount = getAmount(symbol);
             } else {
                 amount = getAssets(lastSnap(), symbol);
             }
@@ -380,7 +491,7 @@ public class Position {
             BigInteger price = BigInteger.ZERO;
             if (amount.compareTo(BigInteger.ZERO) > 0) {
                 if (day == -1 || day == LoansImpl._getDay().intValue()) {
-                    price = getAssetPrice(symbol, readOnly);
+                    price = PriceCache.getPrice(symbol, readOnly);
                 } else {
                     price = SnapshotDB.get(day).getPrices(symbol);
                 }
@@ -421,7 +532,7 @@ public class Position {
             if (standing.ratio.compareTo(miningRatio.get().multiply(EXA).divide(POINTS)) > 0) {
                 BigInteger assetPrice;
                 if (day == -1 || day == LoansImpl._getDay().intValue()) {
-                    assetPrice = getAssetPrice(BNUSD_SYMBOL, readOnly);
+                    assetPrice = PriceCache.getPrice(BNUSD_SYMBOL, readOnly);
                 } else {
                     assetPrice = SnapshotDB.get(day).getPrices(BNUSD_SYMBOL);
                 }
@@ -461,6 +572,28 @@ public class Position {
         return standing.standing;
     }
 
+    /**
+     * Returns the stored collateral and debt amounts of the position without valuing them.
+     */
+    public Map<String, Object> toCompactMap() {
+        Map<String, BigInteger> collateral = new HashMap<>();
+        Map<String, BigInteger> debt = new HashMap<>();
+        for (Map.Entry<String, BigInteger> entry : getAmounts().entrySet()) {
+            if (AssetDB.getAsset(entry.getKey()).isCollateral()) {
+                collateral.put(entry.getKey(), entry.getValue());
+            } else {
+                debt.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return Map.of(
+                "pos_id", getId(),
+                "address", getAddress(),
+                "collateral", collateral,
+                "debt", debt
+        );
+    }
+
     public Map<String, Object> toMap(Integer day) {
         int index = getSnapshotId(day);
         if (index == -1 || day > LoansImpl._getDay().intValue()) {
@@ -468,21 +601,15 @@ public class Position {
         }
 
         Map<String, BigInteger> assetAmounts = new HashMap<>();
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             Asset asset = AssetDB.getAsset(symbol);
             if (!asset.isActive()) {
                 continue;
             }
 
             BigInteger amount;
-            if (getDataMigrationStatus(symbol) && day == -1) {
-                if (symbol.equals(SICX_SYMBOL)) {
-                    amount = getCollateralPosition(symbol);
-                } else {
-                    amount = getLoansPosition(SICX_SYMBOL, symbol);
-                }
+            if (day == -1) {
+                amount = getAmount(symbol);
             } else {
                 amount = getAssets(index, symbol);
             }
@@ -510,15 +637,4 @@ public class Position {
 
         return positionDetails;
     }
-
-    private BigInteger getAssetPrice(String symbol, Boolean readOnly) {
-        Asset asset = AssetDB.getAsset(symbol);
-        Address assetAddress = asset.getAssetAddress();
-        Token assetContract = new Token(assetAddress);
-        if (readOnly) {
-            return assetContract.lastPriceInLoop();
-        } else {
-            return assetContract.priceInLoop();
-        }
-    }
 }
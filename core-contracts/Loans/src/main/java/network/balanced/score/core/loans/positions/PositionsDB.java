@@ -17,23 +17,27 @@
 package network.balanced.score.core.loans.positions;
 
 import network.balanced.score.core.loans.LoansImpl;
-import network.balanced.score.core.loans.LoansVariables;
 import network.balanced.score.core.loans.asset.Asset;
 import network.balanced.score.core.loans.asset.AssetDB;
+import network.balanced.score.core.loans.asset.PriceCache;
 import network.balanced.score.core.loans.linkedlist.LinkedListDB;
 import network.balanced.score.core.loans.snapshot.Snapshot;
 import network.balanced.score.core.loans.snapshot.SnapshotDB;
 import network.balanced.score.core.loans.utils.IdFactory;
-import network.balanced.score.core.loans.utils.Token;
+import network.balanced.score.core.loans.utils.PruneCounter;
 import score.Address;
 import score.Context;
 import score.DictDB;
 import score.VarDB;
+import scorex.util.ArrayList;
+import scorex.util.HashMap;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 
 import static network.balanced.score.core.loans.LoansVariables.snapBatchSize;
+import static network.balanced.score.core.loans.LoansVariables.legacyFree;
 import static network.balanced.score.core.loans.positions.Position.TAG;
 import static network.balanced.score.core.loans.utils.Checks.isBeforeContinuousRewardDay;
 import static network.balanced.score.core.loans.utils.LoansConstants.*;
@@ -45,10 +49,23 @@ public class PositionsDB {
     private static final String ADDRESS_ID = "addressid";
     private static final String NONZERO = "nonzero";
     private static final String NEXT_NODE = "next_node";
+    private static final String PRUNE_CURSOR = "prune_snapshots_cursor";
+    private static final String MIGRATION_CURSOR = "migration_cursor";
+    private static final String POSITIONS_MIGRATED = "positions_migrated";
+    private static final String LIST_MIGRATION_INDEX = "list_migration_index";
+
+    private static final int PRUNE_POSITION_ASSETS = 0;
+    private static final int PRUNE_SNAPSHOTS = 1;
+    private static final int PRUNE_DONE = 2;
+    public static final int MAX_PAGE_SIZE = 100;
 
     private static final IdFactory idFactory = new IdFactory(ID_FACTORY);
     private static final DictDB<Address, Integer> addressIds = Context.newDictDB(ADDRESS_ID, Integer.class);
     private static final VarDB<Integer> nextPositionNode = Context.newVarDB(NEXT_NODE, Integer.class);
+    private static final VarDB<String> pruneCursor = Context.newVarDB(PRUNE_CURSOR, String.class);
+    private static final VarDB<Integer> migrationCursor = Context.newVarDB(MIGRATION_CURSOR, Integer.class);
+    private static final VarDB<Boolean> positionsMigrated = Context.newVarDB(POSITIONS_MIGRATED, Boolean.class);
+    private static final VarDB<Integer> listMigrationIndex = Context.newVarDB(LIST_MIGRATION_INDEX, Integer.class);
 
     public static Integer getAddressIds(Address _owner) {
         return addressIds.getOrDefault(_owner, 0);
@@ -80,6 +97,41 @@ public class PositionsDB {
         return get(id).toMap(-1);
     }
 
+    /**
+     * Returns a page of positions ordered by id as stored, together with the last price of every active asset,
+     * which is read once for the whole page. The page size is capped at MAX_PAGE_SIZE to bound the work of a
+     * single call.
+     *
+     * @param offset Number of positions to skip
+     * @param limit  Maximum number of positions to return, at most MAX_PAGE_SIZE
+     * @return Prices, positions and the total number of positions
+     */
+    public static Map<String, Object> getPage(int offset, int limit) {
+        Context.require(offset >= 0, TAG + ": Offset must not be negative.");
+        Context.require(limit > 0 && limit <= MAX_PAGE_SIZE, TAG + ": Limit must be between 1 and " + MAX_PAGE_SIZE +
+                ".");
+        Map<String, BigInteger> prices = new HashMap<>();
+        for (String symbol : AssetDB.getAssetSymbols()) {
+            Asset asset = AssetDB.getAsset(symbol);
+            if (asset.isActive()) {
+                prices.put(symbol, PriceCache.getLastPrice(asset.getAssetAddress()));
+            }
+        }
+
+        int total = size();
+        List<Map<String, Object>> positions = new ArrayList<>();
+        int count = Math.min(limit, total - offset);
+        for (int i = 1; i <= count; i++) {
+            positions.add(new Position(POSITION_DB_PREFIX + "|" + (offset + i)).toCompactMap());
+        }
+
+        return Map.of(
+                "prices", prices,
+                "positions", positions,
+                "total", total
+        );
+    }
+
     public static LinkedListDB getNonZero() {
         return new LinkedListDB(NONZERO);
     }
@@ -127,13 +179,188 @@ public class PositionsDB {
 
         if (isBeforeContinuousRewardDay(snapshotIndex)) {
             newPosition.setAssets(snapshotIndex.intValue(), SICX_SYMBOL, BigInteger.ZERO);
-        } else {
-            newPosition.setCollateralPosition(SICX_SYMBOL, BigInteger.ZERO);
-            newPosition.setDataMigrationStatus(SICX_SYMBOL, true);
         }
+        newPosition.initialize();
         return newPosition;
     }
 
+    /**
+     * Migrates the next batch of positions to their packed records. Debts that were only recorded in snapshots and
+     * collateral that was not yet counted are summed over the batch and added to the totals once. Positions created after the migration are stored
+     * packed from the start, so all positions are migrated once the cursor passes the last id. Loans switches to
+     * legacy free mode on the first call after that in which continuous rewards are active.
+     *
+     * @param batchSize Number of positions to migrate
+     * @return True if all positions are migrated
+     */
+    public static boolean migratePositions(int batchSize) {
+        Context.require(batchSize > 0, TAG + ": Batch size must be positive.");
+        if (isFullyMigrated()) {
+            enableLegacyFreeMode();
+            return true;
+        }
+
+        int id = migrationCursor.getOrDefault(1);
+        int end = Math.min(id + batchSize, size() + 1);
+        Map<String, BigInteger> totals = new HashMap<>();
+        for (; id < end; id++) {
+            get(id).migrate(totals);
+        }
+        Position.addToTotals(totals);
+
+        migrationCursor.set(id);
+        if (id > size()) {
+            positionsMigrated.set(true);
+            enableLegacyFreeMode();
+        }
+        return isFullyMigrated();
+    }
+
+    /**
+     * Marks Loans as legacy free once all positions are migrated and continuous rewards are active. From then on
+     * current positions are read from their packed records only.
+     */
+    private static void enableLegacyFreeMode() {
+        if (!legacyFree.getOrDefault(false) && !isBeforeContinuousRewardDay()) {
+            legacyFree.set(true);
+        }
+    }
+
+    /**
+     * Converts the next batch of nodes of the nonzero list and of the borrower lists of all assets that are still
+     * stored in the legacy string format. Lists are migrated one after the other, in the order of the asset symbols.
+     * Until its migration starts, a list keeps writing its nodes in the legacy format.
+     *
+     * @param batchSize Number of nodes to visit
+     * @return True if all lists are migrated
+     */
+    public static boolean migrateLinkedLists(int batchSize) {
+        Context.require(batchSize > 0, TAG + ": Batch size must be positive.");
+        List<String> symbols = AssetDB.getAssetSymbols();
+        int index = listMigrationIndex.getOrDefault(0);
+        if (index > symbols.size()) {
+            return true;
+        }
+
+        LinkedListDB list = index == 0 ? getNonZero() : AssetDB.getAsset(symbols.get(index - 1)).getBorrowers();
+        if (list.migrate(batchSize)) {
+            index++;
+            listMigrationIndex.set(index);
+        }
+        return index > symbols.size();
+    }
+
+    public static boolean isFullyMigrated() {
+        return positionsMigrated.getOrDefault(false);
+    }
+
+    /**
+     * Deletes snapshot data of closed days that is no longer read once continuous rewards are active. The job first
+     * walks every position through its snapshots, removing its states on the days it held debt and then its asset
+     * amounts for all but its last snapshot. It then removes the mining lists and prices of all but the last
+     * snapshot. Its progress is kept in a persisted cursor stored as "stage|outer|inner|day", so that each call
+     * continues where the previous one stopped.
+     *
+     * @param batchSize Number of steps to take, where a step prunes one position state, one snapshot of a position,
+     *                  one mining entry or the remaining values of one snapshot
+     * @return Entries and approximate bytes removed by this call, and whether the job is complete
+     */
+    public static Map<String, Object> pruneSnapshots(int batchSize) {
+        Context.require(!isBeforeContinuousRewardDay(), TAG + ": Snapshots can only be pruned once continuous " +
+                "rewards are active.");
+        Context.require(batchSize > 0, TAG + ": Batch size must be positive.");
+
+        String cursor = pruneCursor.getOrDefault(PRUNE_POSITION_ASSETS + "|1|0|-1");
+        int delimiter1 = cursor.indexOf("|");
+        int delimiter2 = cursor.indexOf("|", delimiter1 + 1);
+        int delimiter3 = cursor.indexOf("|", delimiter2 + 1);
+        int stage = Integer.parseInt(cursor.substring(0, delimiter1));
+        int outer = Integer.parseInt(cursor.substring(delimiter1 + 1, delimiter2));
+        int inner;
+        int day = -1;
+        if (delimiter3 == -1) {
+            inner = Integer.parseInt(cursor.substring(delimiter2 + 1));
+        } else {
+            inner = Integer.parseInt(cursor.substring(delimiter2 + 1, delimiter3));
+            day = Integer.parseInt(cursor.substring(delimiter3 + 1));
+        }
+
+        PruneCounter counter = new PruneCounter();
+        int positions = size();
+        int lastSnapshotDay = SnapshotDB.getLastSnapshotIndex();
+        int steps = 0;
+        Position position = null;
+        while (stage == PRUNE_POSITION_ASSETS && steps < batchSize) {
+            steps++;
+            if (outer > positions) {
+                stage = PRUNE_SNAPSHOTS;
+                outer = 0;
+                inner = 0;
+                day = -1;
+                break;
+            }
+
+            if (position == null) {
+                position = get(outer);
+            }
+
+            int snaps = position.getSnapsSize();
+            if (inner >= snaps) {
+                position = null;
+                outer++;
+                inner = 0;
+                day = -1;
+                continue;
+            }
+
+            // States are only written for positions in the nonzero list, so the days of a snapshot without debt are
+            // skipped. The debt has to be read before the asset amounts of the snapshot are pruned.
+            int end = inner < snaps - 1 ? Math.min(position.getSnaps(inner + 1), lastSnapshotDay) : lastSnapshotDay;
+            if (day == -1) {
+                boolean hasDebt = position.getAssets(position.getSnaps(inner), BNUSD_SYMBOL).signum() > 0;
+                day = hasDebt ? position.getSnaps(inner) : end;
+            }
+
+            if (day < end) {
+                SnapshotDB.getByDay(day).prunePositionStates(outer, counter);
+                day++;
+                continue;
+            }
+
+            if (inner < snaps - 1) {
+                position.pruneAssets(inner, counter);
+            }
+            inner++;
+            day = -1;
+        }
+
+        int snapshots = SnapshotDB.getSnapshotCount();
+        Snapshot snapshot = null;
+        while (stage == PRUNE_SNAPSHOTS && steps < batchSize) {
+            steps++;
+            if (outer >= snapshots - 1) {
+                stage = PRUNE_DONE;
+                break;
+            }
+
+            if (snapshot == null) {
+                snapshot = SnapshotDB.getByIndex(outer);
+            }
+
+            if (!snapshot.pruneMining(counter)) {
+                snapshot.prune(counter);
+                snapshot = null;
+                outer++;
+            }
+        }
+
+        pruneCursor.set(stage + "|" + outer + "|" + inner + "|" + day);
+
+        Map<String, Object> result = counter.toMap();
+        result.put("done", stage == PRUNE_DONE);
+        return result;
+    }
+
     /**
      * Captures necessary data for the current snapshot in the SnapshotDB, issues a snapshot eventlog, and starts a
      * new snapshot.
@@ -141,16 +368,10 @@ public class PositionsDB {
     public static void takeSnapshot() {
         Snapshot snapshot = SnapshotDB.get(-1);
 
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for (int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             Asset asset = AssetDB.getAsset(symbol);
-
-            Address assetAddress = asset.getAssetAddress();
-            Token assetContract = new Token(assetAddress);
-
             if (asset.isActive()) {
-                snapshot.setPrices(symbol, assetContract.priceInLoop());
+                snapshot.setPrices(symbol, PriceCache.getPrice(asset.getAssetAddress()));
             }
         }
 
@@ -185,6 +406,9 @@ public class PositionsDB {
         int nonZeroDeltas = add + remove;
         LinkedListDB nonZero = getNonZero();
         if (nonZeroDeltas > 0) {
+            nonZero.startBatch();
+            addToNonZero.startBatch();
+            removeFromNonZero.startBatch();
             int iterations = snapBatchSize.get();
             int loops = Math.min(iterations, remove);
             
@@ -210,7 +434,9 @@ public class PositionsDB {
                 }
             }
 
-            nonZero.serialize();
+            nonZero.flush();
+            addToNonZero.flush();
+            removeFromNonZero.flush();
             return false;
         }
 
@@ -231,11 +457,7 @@ public class PositionsDB {
             if (snapshotId >= position.getSnaps(0)) {
                 Standings standing = position.updateStanding(snapshotId);
                 if (!position.getDataMigrationStatus(BNUSD_SYMBOL)) {
-                    BigInteger previousTotalDebt = LoansVariables.totalDebts.getOrDefault(BNUSD_SYMBOL, BigInteger.ZERO);
-                    BigInteger debtAmount = position.getAssets(position.getSnapshotId(day.intValue()), BNUSD_SYMBOL);
-                    LoansVariables.totalDebts.set(BNUSD_SYMBOL, previousTotalDebt.add(debtAmount));
-                    position.setLoansPosition(SICX_SYMBOL, BNUSD_SYMBOL, debtAmount);
-                    position.setDataMigrationStatus(BNUSD_SYMBOL, true);
+                    position.migrate();
                 }
 
                 if (standing == Standings.MINING) {
@@ -28,6 +28,7 @@ import java.util.Map;
 
 import network.balanced.score.core.loans.asset.*;
 import network.balanced.score.core.loans.linkedlist.*;
+import network.balanced.score.core.loans.utils.PruneCounter;
 
 public class Snapshot {
     private final BranchDB<String, VarDB<Integer>> day = Context.newBranchDB("snap_day", Integer.class);
@@ -113,12 +114,43 @@ public class Snapshot {
         return new LinkedListDB("remove_from_nonzero", dbKey);
     }
 
+    /**
+     * Deletes the stored state of a single position in this snapshot.
+     */
+    public void prunePositionStates(Integer id, PruneCounter counter) {
+        DictDB<String, BigInteger> states = getAllPositionStates(id);
+        counter.remove(states, "total_debt");
+        counter.remove(states, "ratio");
+        counter.remove(states, "standing");
+    }
+
+    /**
+     * Deletes the last entry of the mining list of this snapshot.
+     *
+     * @return False if the mining list was already empty
+     */
+    public boolean pruneMining(PruneCounter counter) {
+        return counter.pop(mining.at(dbKey));
+    }
+
+    /**
+     * Deletes the remaining snapshot wide values, after its position states and mining list have been pruned.
+     */
+    public void prune(PruneCounter counter) {
+        DictDB<String, BigInteger> snapshotPrices = prices.at(dbKey);
+        for (String symbol : AssetDB.getAssetSymbols()) {
+            counter.remove(snapshotPrices, symbol);
+        }
+        counter.removeBigInteger(totalMiningDebt.at(dbKey));
+        counter.removeBigInteger(snapshotTime.at(dbKey));
+        counter.removeInteger(preComputeIndex.at(dbKey));
+        counter.removeInteger(day.at(dbKey));
+    }
+
     public Map<String, Object> toMap() {
         Map<String, BigInteger> prices = new HashMap<>();
 
-        int assetSymbolsCount = AssetDB.assetSymbols.size();
-        for(int i = 0; i < assetSymbolsCount; i++) {
-            String symbol = AssetDB.assetSymbols.get(i);
+        for (String symbol : AssetDB.getAssetSymbols()) {
             if (AssetDB.getAsset(symbol).getAssetAddedTime().compareTo(getSnapshotTime()) < 0 && AssetDB.getAsset(symbol).isActive()) {
                 prices.put(symbol, this.getPrices(symbol));
             }
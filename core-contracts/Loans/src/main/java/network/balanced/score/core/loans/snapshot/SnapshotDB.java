@@ -17,14 +17,28 @@
 package network.balanced.score.core.loans.snapshot;
 
 import network.balanced.score.core.loans.LoansImpl;
+import network.balanced.score.core.loans.utils.DayIndexDB;
+import network.balanced.score.core.loans.utils.TransactionScope;
 import score.ArrayDB;
 import score.Context;
+import score.VarDB;
 
 public class SnapshotDB {
 
     private static final String TAG = "BalancedLoansSnapshots";
     private static final String SNAP_DB_PREFIX = "snaps";
     private static final ArrayDB<Integer> indexes = Context.newArrayDB("indexes", Integer.class);
+    private static final VarDB<String> indexBounds = Context.newVarDB("index_bounds", String.class);
+
+    private static final TransactionScope scope = new TransactionScope();
+    private static DayIndexDB dayIndex;
+
+    private static DayIndexDB getIndexes() {
+        if (scope.enter() || dayIndex == null) {
+            dayIndex = new DayIndexDB(indexes, indexBounds);
+        }
+        return dayIndex;
+    }
 
     public static Snapshot get(Integer day) {
         int inputDay = day;
@@ -32,58 +46,62 @@ public class SnapshotDB {
         if (day < 0) {
             day = index;
         }
-        Context.require(index >= indexes.get(0) && index <= indexes.get(indexes.size() - 1),
+        DayIndexDB indexes = getIndexes();
+        Context.require(index >= indexes.get(0) && index <= indexes.getLast(),
                 TAG + ": No snapshot exists for " + day + ", input_day: " + inputDay + ".");
         return getSnapshot(index);
     }
 
     public static Integer size() {
-        return indexes.get(indexes.size() - 1) - (indexes.get(0));
+        DayIndexDB indexes = getIndexes();
+        return indexes.getLast() - indexes.get(0);
     }
 
     private static Snapshot getSnapshot(Integer index) {
         return new Snapshot(SNAP_DB_PREFIX + "|" + index);
     }
 
+    public static int getSnapshotCount() {
+        return getIndexes().size();
+    }
+
+    /**
+     * Returns the snapshot at a position in the list of snapshot days, oldest first.
+     */
+    public static Snapshot getByIndex(int index) {
+        return getSnapshot(getIndexes().get(index));
+    }
+
+    /**
+     * Returns the snapshot taken on a day without resolving it to the closest earlier snapshot.
+     */
+    public static Snapshot getByDay(int day) {
+        return getSnapshot(day);
+    }
+
     public static Integer getLastSnapshotIndex() {
-        return indexes.get(indexes.size() - 1);
+        return getIndexes().getLast();
     }
 
     public static Integer getSnapshotId(Integer day) {
+        DayIndexDB indexes = getIndexes();
         if (day < 0) {
             int index = day + indexes.size();
             Context.require(index >= 0, TAG + ": Snapshot index " + day + " out of range.");
             return indexes.get(index);
         }
 
-        int low = 0;
-        int high = indexes.size();
-        int middle;
-        while (low < high) {
-            middle = (low + high) / 2;
-            if (indexes.get(middle) > day) {
-                high = middle;
-            } else {
-                low = middle + 1;
-            }
-        }
-
-        if (indexes.get(0).equals(day)) {
-            return day;
-        } else if (low == 0) {
-            return -1;
-        }
-
-        return indexes.get(low - 1);    
+        return indexes.floor(day);
     }
 
     public static void startNewSnapshot() {
         int day = LoansImpl._getDay().intValue();
 
-        Context.require(indexes.size() == 0 || day > getLastSnapshotIndex(), TAG + ": New snapshot called for a day " +
+        DayIndexDB indexes = getIndexes();
+        Context.require(indexes.size() == 0 || day > indexes.getLast(), TAG + ": New snapshot called for a day " +
                 "less than the previous snapshot.");
         indexes.add(day);
         Snapshot snapshot = getSnapshot(day);
         snapshot.setDay(day);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.utils;
+
+import score.Address;
+import score.Context;
+import score.VarDB;
+import scorex.util.HashMap;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+import static network.balanced.score.core.loans.LoansImpl.TAG;
+
+/**
+ * Addresses of peer contracts pushed by governance as a single "name:address|name:address" record. The record is
+ * decoded at most once per transaction. Only peers without a dedicated setter in Loans are resolved from here, peers
+ * such as rewards and dividends keep being read from their own variables.
+ */
+public class AddressBook {
+    private static final String ADDRESS_BOOK = "address_book";
+    private static final String ADDRESS_BOOK_VERSION = "address_book_version";
+
+    private static final VarDB<String> addressBook = Context.newVarDB(ADDRESS_BOOK, String.class);
+    private static final VarDB<BigInteger> version = Context.newVarDB(ADDRESS_BOOK_VERSION, BigInteger.class);
+
+    private static final TransactionScope scope = new TransactionScope();
+    private static Map<String, Address> addresses;
+
+    public static BigInteger getVersion() {
+        return version.getOrDefault(BigInteger.ZERO);
+    }
+
+    public static void set(BigInteger newVersion, String newAddressBook) {
+        Context.require(newVersion.compareTo(getVersion()) > 0, TAG + ": Address book version " + newVersion +
+                " is not newer than " + getVersion());
+        version.set(newVersion);
+        addressBook.set(newAddressBook);
+        addresses = null;
+    }
+
+    public static Map<String, Address> getAll() {
+        if (scope.enter() || addresses == null) {
+            addresses = new HashMap<>();
+            String data = addressBook.get();
+            int start = 0;
+            while (data != null && start < data.length()) {
+                int end = data.indexOf("|", start);
+                if (end == -1) {
+                    end = data.length();
+                }
+
+                int delimiter = data.indexOf(":", start);
+                addresses.put(data.substring(start, delimiter), Address.fromString(data.substring(delimiter + 1, end)));
+                start = end + 1;
+            }
+        }
+
+        return addresses;
+    }
+}
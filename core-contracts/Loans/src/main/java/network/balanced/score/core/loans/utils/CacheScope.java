@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.utils;
+
+import network.balanced.score.core.loans.asset.AssetDB;
+import network.balanced.score.core.loans.asset.PriceCache;
+
+/**
+ * Tracks how deep the contract is nested in its own external methods, which call each other and can be re-entered
+ * through token callbacks. When the outermost method returns, the in-memory caches are dropped, as static fields
+ * would otherwise be stored with the contract and carried into later transactions. A failing call reverts the
+ * stored state as a whole, so only successful returns need to leave the scope.
+ */
+public class CacheScope {
+    private static int depth = 0;
+
+    public static void enter() {
+        depth++;
+    }
+
+    public static void exit() {
+        depth--;
+        if (depth == 0) {
+            AssetDB.clearCache();
+            PriceCache.clearCache();
+        }
+    }
+}
@@ -22,12 +22,43 @@ import score.Context;
 import java.math.BigInteger;
 
 import static network.balanced.score.core.loans.LoansImpl.TAG;
+import static network.balanced.score.core.loans.LoansVariables.compactEvents;
 import static network.balanced.score.core.loans.LoansVariables.continuousRewardDay;
+import static network.balanced.score.core.loans.LoansVariables.legacyFree;
 import static network.balanced.score.core.loans.LoansVariables.loansOn;
 
 
 public class Checks {
+    private static final TransactionScope scope = new TransactionScope();
+    private static boolean legacyFreeMode;
+    private static final TransactionScope compactEventsScope = new TransactionScope();
+    private static boolean compactEventsMode;
+
+    /**
+     * Returns true once all positions are migrated and continuous rewards are active, after which current positions
+     * never read snapshot or migration state again. The marker is read once per transaction.
+     */
+    public static boolean isLegacyFree() {
+        if (scope.enter()) {
+            legacyFreeMode = legacyFree.getOrDefault(false);
+        }
+        return legacyFreeMode;
+    }
+
+    /**
+     * Returns true if compact events are emitted instead of the original ones. The flag is read once per transaction.
+     */
+    public static boolean isCompactEvents() {
+        if (compactEventsScope.enter()) {
+            compactEventsMode = compactEvents.getOrDefault(false);
+        }
+        return compactEventsMode;
+    }
+
     public static boolean isBeforeContinuousRewardDay() {
+        if (isLegacyFree()) {
+            return false;
+        }
         return isBeforeContinuousRewardDay(LoansImpl._getDay());
     }
 
@@ -37,7 +68,7 @@ public class Checks {
 
     public static boolean isBeforeContinuousRewardDay(BigInteger day) {
         if (day.equals(BigInteger.valueOf(-1))){
-            day = LoansImpl._getDay();
+            return isBeforeContinuousRewardDay();
         }
         
         BigInteger continuousActivationDay = continuousRewardDay.getOrDefault(null);
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.utils;
+
+import score.ArrayDB;
+import score.Context;
+import score.VarDB;
+
+/**
+ * Ascending list of days in an ArrayDB, with the first, previous and last day and the size kept in a single
+ * "first|previous|last|size" record. Lookups of the latest days only read that record, other days are found by
+ * binary search. Lists created before the record existed are read from the ArrayDB, fetching only the days that
+ * are used, until the next add writes the record. Lookups never write to storage.
+ */
+public class DayIndexDB {
+    private static final String TAG = "DayIndexDB";
+    private final ArrayDB<Integer> days;
+    private final VarDB<String> bounds;
+    private boolean loaded;
+    private Integer first;
+    private Integer previous;
+    private Integer last;
+    private int size;
+
+    public DayIndexDB(ArrayDB<Integer> days, VarDB<String> bounds) {
+        this.days = days;
+        this.bounds = bounds;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        loaded = true;
+        String data = bounds.get();
+        if (data == null) {
+            size = days.size();
+            return;
+        }
+
+        int delimiter1 = data.indexOf("|");
+        int delimiter2 = data.indexOf("|", delimiter1 + 1);
+        int delimiter3 = data.lastIndexOf("|");
+        first = Integer.parseInt(data.substring(0, delimiter1));
+        previous = Integer.parseInt(data.substring(delimiter1 + 1, delimiter2));
+        last = Integer.parseInt(data.substring(delimiter2 + 1, delimiter3));
+        size = Integer.parseInt(data.substring(delimiter3 + 1));
+    }
+
+    private int first() {
+        if (first == null) {
+            first = size > 0 ? days.get(0) : 0;
+        }
+        return first;
+    }
+
+    private int previous() {
+        if (previous == null) {
+            previous = size > 1 ? days.get(size - 2) : 0;
+        }
+        return previous;
+    }
+
+    private int last() {
+        if (last == null) {
+            last = size > 0 ? days.get(size - 1) : 0;
+        }
+        return last;
+    }
+
+    private void writeBounds() {
+        bounds.set(first() + "|" + previous() + "|" + last() + "|" + size);
+    }
+
+    public int size() {
+        load();
+        return size;
+    }
+
+    public int get(int index) {
+        load();
+        Context.require(index >= 0 && index < size, TAG + ": Index " + index + " out of range.");
+        if (index == size - 1) {
+            return last();
+        } else if (index == size - 2) {
+            return previous();
+        } else if (index == 0) {
+            return first();
+        }
+        return days.get(index);
+    }
+
+    public int getLast() {
+        return get(size() - 1);
+    }
+
+    public void add(int day) {
+        load();
+        if (size == 0) {
+            first = day;
+            previous = 0;
+        } else {
+            first();
+            previous = last();
+        }
+        days.add(day);
+        last = day;
+        size = size + 1;
+        writeBounds();
+    }
+
+    /**
+     * Returns the latest day in the list that is not after the given day, or -1 if there is none.
+     */
+    public int floor(int day) {
+        load();
+        if (size == 0 || day < first()) {
+            return -1;
+        } else if (day >= last()) {
+            return last();
+        } else if (size > 1 && day >= previous()) {
+            return previous();
+        }
+
+        int low = 1;
+        int high = size - 2;
+        while (low < high) {
+            int middle = (low + high) / 2;
+            if (days.get(middle) > day) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+
+        return days.get(low - 1);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.utils;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import score.Context;
+
+import java.math.BigInteger;
+
+import static network.balanced.score.core.loans.LoansImpl.TAG;
+import static network.balanced.score.lib.utils.Math.convertToNumber;
+
+/**
+ * Request data of an sICX deposit made through tokenFallback. It is accepted either as a JSON object
+ * {"_asset": symbol, "_amount": amount} or in a compact binary form:
+ * <pre>
+ * byte 0        version, {@link #COMPACT_V1}
+ * byte 1        length n of the asset symbol
+ * bytes 2..n+1  asset symbol in UTF-8
+ * bytes n+2..   amount to borrow as an unsigned big-endian integer, omitted to only deposit
+ * </pre>
+ * JSON data always starts with a printable character, so the version byte tells both forms apart.
+ */
+public class DepositRequest {
+    public static final byte COMPACT_V1 = 0x01;
+
+    private final String asset;
+    private final BigInteger amount;
+
+    private DepositRequest(String asset, BigInteger amount) {
+        this.asset = asset;
+        this.amount = amount;
+    }
+
+    public String getAsset() {
+        return asset;
+    }
+
+    public BigInteger getAmount() {
+        return amount;
+    }
+
+    public static DepositRequest decode(byte[] data) {
+        Context.require(data != null && data.length > 0, TAG + ": Token Fallback: Data can't be empty");
+        if (data[0] == COMPACT_V1) {
+            return decodeCompact(data);
+        }
+
+        JsonObject json = Json.parse(new String(data)).asObject();
+        JsonValue amount = json.get("_amount");
+        return new DepositRequest(json.get("_asset").asString(), amount == null ? null : convertToNumber(amount));
+    }
+
+    private static DepositRequest decodeCompact(byte[] data) {
+        Context.require(data.length >= 2, TAG + ": Token Fallback: Invalid compact data");
+        int assetLength = data[1] & 0xff;
+        int amountOffset = 2 + assetLength;
+        Context.require(data.length >= amountOffset, TAG + ": Token Fallback: Invalid compact data");
+
+        String asset = new String(data, 2, assetLength);
+        BigInteger amount = null;
+        if (data.length > amountOffset) {
+            byte[] magnitude = new byte[data.length - amountOffset];
+            System.arraycopy(data, amountOffset, magnitude, 0, magnitude.length);
+            amount = new BigInteger(1, magnitude);
+        }
+
+        return new DepositRequest(asset, amount);
+    }
+}
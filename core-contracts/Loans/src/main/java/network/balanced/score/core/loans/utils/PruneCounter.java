@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.utils;
+
+import score.ArrayDB;
+import score.DictDB;
+import score.VarDB;
+import scorex.util.HashMap;
+
+import java.math.BigInteger;
+import java.util.Map;
+
+/**
+ * Deletes storage entries and keeps count of how many entries and roughly how many bytes were freed. The byte count
+ * covers the key and the encoded value of each entry, not the fixed overhead of the state database.
+ */
+public class PruneCounter {
+    private int entries = 0;
+    private long bytes = 0;
+
+    public void remove(DictDB<String, BigInteger> db, String key) {
+        BigInteger value = db.get(key);
+        if (value != null) {
+            db.set(key, null);
+            count(key.length(), value.toByteArray().length);
+        }
+    }
+
+    public void removeBigInteger(VarDB<BigInteger> db) {
+        BigInteger value = db.get();
+        if (value != null) {
+            db.set(null);
+            count(0, value.toByteArray().length);
+        }
+    }
+
+    public void removeInteger(VarDB<Integer> db) {
+        if (db.get() != null) {
+            db.set(null);
+            count(0, Integer.BYTES);
+        }
+    }
+
+    /**
+     * Removes the last element of an array.
+     *
+     * @return False if the array was already empty
+     */
+    public boolean pop(ArrayDB<Integer> db) {
+        if (db.size() == 0) {
+            return false;
+        }
+        db.pop();
+        count(0, Integer.BYTES);
+        return true;
+    }
+
+    private void count(int keySize, int valueSize) {
+        entries++;
+        bytes += keySize + valueSize;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("entries", entries);
+        result.put("bytes", BigInteger.valueOf(bytes));
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.loans.utils;
+
+import score.Context;
+
+/**
+ * Tracks the transaction an in-memory cache was filled in, so that the cache can be dropped as soon as the contract
+ * is entered from a different transaction or a readonly query.
+ */
+public class TransactionScope {
+    private long blockHeight = -1;
+    private int transactionIndex;
+    private long transactionTimestamp;
+
+    /**
+     * Moves the scope to the currently executing transaction.
+     *
+     * @return True if the transaction differs from the one the scope was last entered in
+     */
+    public boolean enter() {
+        long height = Context.getBlockHeight();
+        int index = Context.getTransactionIndex();
+        long timestamp = Context.getTransactionTimestamp();
+        if (height == blockHeight && index == transactionIndex && timestamp == transactionTimestamp) {
+            return false;
+        }
+
+        blockHeight = height;
+        transactionIndex = index;
+        transactionTimestamp = timestamp;
+        return true;
+    }
+
+    /**
+     * Moves the scope back to its initial state, so that the next call to enter starts a new transaction.
+     */
+    public void reset() {
+        blockHeight = -1;
+        transactionIndex = 0;
+        transactionTimestamp = 0;
+    }
+}
@@ -17,7 +17,12 @@
 package network.balanced.score.core.loans;
 
 import com.iconloop.score.test.Account;
+import network.balanced.score.core.loans.linkedlist.LinkedListDB;
+import network.balanced.score.core.loans.mocks.bnUSD.bnUSDMintBurn;
+import network.balanced.score.core.loans.mocks.sICX.sICXMintBurn;
 import network.balanced.score.core.loans.utils.LoansConstants.Standings;
+import network.balanced.score.lib.interfaces.RewardsScoreInterface;
+import network.balanced.score.lib.test.mock.MockContract;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -26,12 +31,18 @@ import score.Address;
 import scorex.util.ArrayList;
 
 import java.math.BigInteger;
+import java.util.List;
 import java.util.Map;
 
 import static network.balanced.score.core.loans.utils.LoansConstants.StandingsMap;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @DisplayName("Loans Tests")
@@ -248,6 +259,71 @@ class LoansTest extends LoansTestBase {
         assertEquals(loan.add(expectedFee), balanceAndSupply.get("_totalSupply"));
     }
 
+    @Test
+    void getPositionsPage() {
+        // Arrange
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedFee = calculateFee(loan);
+        takeLoanICX(accounts.get(0), "bnUSD", collateral, loan);
+        takeLoanICX(accounts.get(1), "bnUSD", collateral, loan);
+
+        // Act
+        Map<String, Object> firstPage = (Map<String, Object>) loans.call("getPositionsPage", 0, 1);
+        Map<String, Object> secondPage = (Map<String, Object>) loans.call("getPositionsPage", 1, 10);
+
+        // Assert
+        assertEquals(2, firstPage.get("total"));
+        List<Map<String, Object>> positions = (List<Map<String, Object>>) firstPage.get("positions");
+        assertEquals(1, positions.size());
+        assertEquals(1, positions.get(0).get("pos_id"));
+        assertEquals(accounts.get(0).getAddress(), positions.get(0).get("address"));
+        assertEquals(collateral, ((Map<String, BigInteger>) positions.get(0).get("collateral")).get("sICX"));
+        assertEquals(loan.add(expectedFee), ((Map<String, BigInteger>) positions.get(0).get("debt")).get("bnUSD"));
+        assertTrue(((Map<String, BigInteger>) firstPage.get("prices")).containsKey("bnUSD"));
+
+        positions = (List<Map<String, Object>>) secondPage.get("positions");
+        assertEquals(1, positions.size());
+        assertEquals(accounts.get(1).getAddress(), positions.get(0).get("address"));
+    }
+
+    @Test
+    void getPositionsPage_limitOutOfRange() {
+        String expectedErrorMessage = "Limit must be between 1 and 100.";
+
+        Executable zeroLimit = () -> loans.call("getPositionsPage", 0, 0);
+        expectErrorMessage(zeroLimit, expectedErrorMessage);
+
+        Executable limitTooLarge = () -> loans.call("getPositionsPage", 0, 101);
+        expectErrorMessage(limitTooLarge, expectedErrorMessage);
+    }
+
+    @Test
+    void getTotalCollateral_FromRunningTotals() {
+        // Arrange
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger collateralToWithdraw = BigInteger.valueOf(200).multiply(EXA);
+        takeLoanICX(account, "bnUSD", collateral, loan);
+        takeLoanICX(accounts.get(1), "bnUSD", collateral, loan);
+        BigInteger totalCollateralFromBalances = (BigInteger) loans.call("getTotalCollateral");
+
+        // Act
+        loans.invoke(account, "migratePositions", 10);
+
+        // Assert
+        assertEquals(totalCollateralFromBalances, loans.call("getTotalCollateral"));
+        assertEquals(collateral.multiply(BigInteger.TWO), loans.call("getTotalCollateral"));
+
+        // Act
+        loans.invoke(account, "withdrawCollateral", collateralToWithdraw);
+
+        // Assert
+        assertEquals(collateral.multiply(BigInteger.TWO).subtract(collateralToWithdraw), loans.call(
+                "getTotalCollateral"));
+    }
+
     @Test
     void getBalanceAndSupply_noPositition() {
         // Arrange
@@ -290,6 +366,33 @@ class LoansTest extends LoansTestBase {
         verify(loansSpy).depositAndBorrow("bnUSD", bigLoan, account.getAddress(), collateral);
     }
 
+    @Test
+    void tokenFallback_CompactData() {
+        // Arrange
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        byte[] asset = "bnUSD".getBytes();
+        byte[] amount = loan.toByteArray();
+        byte[] data = new byte[2 + asset.length + amount.length];
+        data[0] = 0x01;
+        data[1] = (byte) asset.length;
+        System.arraycopy(asset, 0, data, 2, asset.length);
+        System.arraycopy(amount, 0, data, 2 + asset.length, amount.length);
+        byte[] depositOnly = new byte[2 + asset.length];
+        System.arraycopy(data, 0, depositOnly, 0, depositOnly.length);
+        doNothing().when(loansSpy).depositAndBorrow("bnUSD", loan, account.getAddress(), collateral);
+        doNothing().when(loansSpy).depositAndBorrow("bnUSD", null, account.getAddress(), collateral);
+
+        // Act
+        sicx.invoke(account, "transfer", loans.getAddress(), collateral, data);
+        sicx.invoke(account, "transfer", loans.getAddress(), collateral, depositOnly);
+
+        // Assert
+        verify(loansSpy).depositAndBorrow("bnUSD", loan, account.getAddress(), collateral);
+        verify(loansSpy).depositAndBorrow("bnUSD", null, account.getAddress(), collateral);
+    }
+
     @Test
     void tokenFallback_ZeroValue() {
         // Arrange
@@ -343,6 +446,85 @@ class LoansTest extends LoansTestBase {
         verifyPosition(account.getAddress(), collateral, loan.add(expectedFee));
     }
 
+    @Test
+    void DepositAndBorrow_CompactEvents() {
+        // Arrange
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        governanceCall("setCompactEvents", true);
+
+        // Act
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Assert
+        assertTrue((boolean) loans.call("getCompactEvents"));
+        verify(loansSpy).LoanOriginated(account.getAddress(), "bnUSD", loan);
+        verify(loansSpy, times(0)).OriginateLoan(any(Address.class), any(String.class), any(BigInteger.class),
+                any(String.class));
+    }
+
+    @Test
+    void DepositAndBorrow_FeeHandlerFromAddressBook() {
+        // Arrange
+        Account account = accounts.get(0);
+        Account addressBookFeehandler = Account.newScoreAccount(scoreCount++);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedFee = calculateFee(loan);
+        governanceCall("setAddressBook", BigInteger.ONE, "feehandler:" + addressBookFeehandler.getAddress());
+
+        // Act
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Assert
+        assertEquals(expectedFee, bnusd.call("balanceOf", addressBookFeehandler.getAddress()));
+        verify(governance.mock, times(0)).getContractAddress("feehandler");
+
+        Executable outdatedAddressBook = () -> governanceCall("setAddressBook", BigInteger.ONE, "");
+        expectErrorMessage(outdatedAddressBook, "Address book version 1 is not newer than 1");
+    }
+
+    @Test
+    void DepositAndBorrow_SetRewardsAfterAddressBook() throws Exception {
+        // Arrange
+        Account account = accounts.get(0);
+        MockContract<RewardsScoreInterface> newRewards = new MockContract<>(RewardsScoreInterface.class, sm, admin);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        governanceCall("setAddressBook", BigInteger.ONE, "rewards:" + rewards.getAddress());
+
+        // Act
+        loans.invoke(admin, "setRewards", newRewards.getAddress());
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Assert
+        assertEquals(newRewards.getAddress(), loans.call("getRewards"));
+        verify(newRewards.mock).updateRewardsDataWithBalance(eq("Loans"), any(BigInteger.class),
+                eq(account.getAddress()), any(BigInteger.class), any(BigInteger.class), any(BigInteger.class));
+        verify(rewards.mock, times(0)).updateRewardsDataWithBalance(eq("Loans"), any(BigInteger.class),
+                eq(account.getAddress()), any(BigInteger.class), any(BigInteger.class), any(BigInteger.class));
+    }
+
+    @Test
+    void DepositAndBorrow_PricesFetchedOnce() {
+        // Arrange
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        sICXMintBurn sicxSpy = (sICXMintBurn) spy(sicx.getInstance());
+        sicx.setInstance(sicxSpy);
+        bnUSDMintBurn bnusdSpy = (bnUSDMintBurn) spy(bnusd.getInstance());
+        bnusd.setInstance(bnusdSpy);
+
+        // Act
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Assert
+        verify(sicxSpy, times(1)).priceInLoop();
+        verify(bnusdSpy, times(1)).priceInLoop();
+    }
+
     @Test
     void DepositAndBorrow_StakeOnly() {
         // Arrange
@@ -666,6 +848,98 @@ class LoansTest extends LoansTestBase {
         assertEquals(expectedLiquidationPool, bnusdAsset.get("liquidation_pool"));
     }
 
+    @Test
+    void getLiquidationCandidates() {
+        // Arrange
+        Account account = accounts.get(0);
+        Account safeAccount = accounts.get(1);
+        Account liquidater = accounts.get(2);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        takeLoanICX(account, "bnUSD", collateral, BigInteger.valueOf(200).multiply(EXA));
+        takeLoanICX(safeAccount, "bnUSD", collateral, BigInteger.valueOf(100).multiply(EXA));
+        BigInteger sicxPrice = EXA.divide(BigInteger.valueOf(4));
+
+        // Act
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) loans.call("getLiquidationCandidates",
+                sicxPrice, 10);
+
+        // Assert
+        assertEquals(1, candidates.size());
+        assertEquals(account.getAddress(), candidates.get(0).get("address"));
+        assertEquals(0, ((List<?>) loans.call("getLiquidationCandidates", EXA, 10)).size());
+
+        // Act
+        bnusd.invoke(admin, "setPrice", EXA.multiply(BigInteger.valueOf(4)));
+        loans.invoke(liquidater, "liquidate", account.getAddress());
+
+        // Assert
+        assertEquals(0, ((List<?>) loans.call("getLiquidationCandidates", sicxPrice, 10)).size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void getLiquidationCandidates_orderedAcrossBuckets() {
+        // Arrange
+        Account riskiest = accounts.get(0);
+        Account risky = accounts.get(1);
+        Account safeAccount = accounts.get(2);
+        BigInteger loan = BigInteger.valueOf(200).multiply(EXA);
+        takeLoanICX(risky, "bnUSD", BigInteger.valueOf(1150).multiply(EXA), loan);
+        takeLoanICX(safeAccount, "bnUSD", BigInteger.valueOf(2000).multiply(EXA), loan);
+        takeLoanICX(riskiest, "bnUSD", BigInteger.valueOf(1000).multiply(EXA), loan);
+        BigInteger sicxPrice = EXA.divide(BigInteger.valueOf(4));
+
+        // Act
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) loans.call("getLiquidationCandidates",
+                sicxPrice, 10);
+        List<Map<String, Object>> firstCandidate = (List<Map<String, Object>>) loans.call(
+                "getLiquidationCandidates", sicxPrice, 1);
+
+        // Assert
+        assertEquals(2, candidates.size());
+        assertEquals(riskiest.getAddress(), candidates.get(0).get("address"));
+        assertEquals(risky.getAddress(), candidates.get(1).get("address"));
+        assertEquals(1, firstCandidate.size());
+        assertEquals(riskiest.getAddress(), firstCandidate.get(0).get("address"));
+    }
+
+    @Test
+    void getLiquidationCandidates_limitOutOfRange() {
+        BigInteger sicxPrice = EXA.divide(BigInteger.valueOf(4));
+        String expectedErrorMessage = "Limit must be between 1 and 100.";
+
+        Executable zeroLimit = () -> loans.call("getLiquidationCandidates", sicxPrice, 0);
+        expectErrorMessage(zeroLimit, expectedErrorMessage);
+
+        Executable limitTooLarge = () -> loans.call("getLiquidationCandidates", sicxPrice, 101);
+        expectErrorMessage(limitTooLarge, expectedErrorMessage);
+    }
+
+    @Test
+    void liquidate_PricesFetchedOnce() {
+        // Arrange
+        Account account = accounts.get(0);
+        Account liquidater = accounts.get(1);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(200).multiply(EXA);
+
+        takeLoanICX(account, "bnUSD", collateral, loan);
+        BigInteger newPrice = BigInteger.TEN.pow(18).multiply(BigInteger.valueOf(4));
+        bnusd.invoke(admin, "setPrice", newPrice);
+        sICXMintBurn sicxSpy = (sICXMintBurn) spy(sicx.getInstance());
+        sicx.setInstance(sicxSpy);
+        bnUSDMintBurn bnusdSpy = (bnUSDMintBurn) spy(bnusd.getInstance());
+        bnusd.setInstance(bnusdSpy);
+
+        // Act
+        loans.invoke(liquidater, "liquidate", account.getAddress());
+
+        // Assert
+        verify(sicxSpy, times(1)).priceInLoop();
+        verify(bnusdSpy, times(1)).priceInLoop();
+        verifyPosition(account.getAddress(), BigInteger.ZERO, BigInteger.ZERO);
+    }
+
     @Test
     void liquidate_PostionNotInLiquidateStanding() {
         // Arrange
@@ -970,6 +1244,43 @@ class LoansTest extends LoansTestBase {
         verifyPosition(accounts.get(2).getAddress(), accountTwoCollateral.subtract(accountTwoExpectedCollateralSold), accountTwoDebt.subtract(accountTwoExpectedDebtRepaid));
     }
 
+    @Test
+    void raisePrice_RotatesThroughBorrowers() {
+        // Arrange
+        BigInteger collateral = BigInteger.valueOf(10000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(1000).multiply(EXA);
+        takeLoanICX(accounts.get(0), "bnUSD", collateral, loan);
+        takeLoanICX(accounts.get(1), "bnUSD", collateral, loan);
+        takeLoanICX(accounts.get(2), "bnUSD", collateral, loan);
+        loans.invoke(admin, "setRedeemBatchSize", 2);
+
+        BigInteger rebalanceAmount = BigInteger.valueOf(10).multiply(EXA);
+        mockSicxBnusdPrice(EXA);
+        mockSwap(bnusd, rebalanceAmount, rebalanceAmount);
+        Object accountOneDebt = getTotalDebt(accounts.get(1));
+        Object accountTwoDebt = getTotalDebt(accounts.get(2));
+
+        // Act
+        loans.invoke(rebalancing, "raisePrice", rebalanceAmount);
+
+        // Assert
+        assertNotEquals(accountOneDebt, getTotalDebt(accounts.get(1)));
+        assertEquals(accountTwoDebt, getTotalDebt(accounts.get(2)));
+
+        // Act
+        accountOneDebt = getTotalDebt(accounts.get(1));
+        loans.invoke(rebalancing, "raisePrice", rebalanceAmount);
+
+        // Assert
+        assertEquals(accountOneDebt, getTotalDebt(accounts.get(1)));
+        assertNotEquals(accountTwoDebt, getTotalDebt(accounts.get(2)));
+    }
+
+    private Object getTotalDebt(Account account) {
+        Map<String, Object> position = (Map<String, Object>) loans.call("getAccountPositions", account.getAddress());
+        return position.get("total_debt");
+    }
+
     @Test
     void raisePrice_OverMaxRetirePercent() {
         // Arrange
@@ -1255,6 +1566,24 @@ class LoansTest extends LoansTestBase {
         );
     }
 
+    @Test
+    void precompute_NodesWrittenOnce() {
+        // Arrange
+        BigInteger collateral = BigInteger.valueOf(10000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(1000).multiply(EXA);
+        takeLoanICX(accounts.get(0), "bnUSD", collateral, loan);
+        takeLoanICX(accounts.get(1), "bnUSD", collateral, loan);
+        BigInteger day = (BigInteger) loans.call("getDay");
+        int nodeWritesBefore = LinkedListDB.getNodeWrites();
+
+        // Act
+        loans.invoke(rewards.account, "precompute", day, BigInteger.valueOf(0));
+
+        // Assert
+        // Two nodes appended to the nonzero list and two removed from the list of positions to add
+        assertEquals(4, LinkedListDB.getNodeWrites() - nodeWritesBefore);
+    }
+
     @Test
     void precompute_OnlyRemovePositions() {
         // Arrange
@@ -23,7 +23,7 @@ import com.iconloop.score.test.ServiceManager;
 import network.balanced.score.core.loans.mocks.bnUSD.bnUSDMintBurn;
 import network.balanced.score.core.loans.mocks.sICX.sICXMintBurn;
 import network.balanced.score.lib.interfaces.*;
-import network.balanced.score.lib.structs.RewardsDataEntry;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import network.balanced.score.lib.test.UnitTest;
 import network.balanced.score.lib.test.mock.MockContract;
 import org.mockito.Mockito;
@@ -187,8 +187,8 @@ class LoansTestBase extends UnitTest {
         assertEquals(collateral, position.get("collateral"));
     }
 
-    protected boolean compareRewardsData(RewardsDataEntry[] expectedDataEntires, RewardsDataEntry[] dataEntires) {
-        for (RewardsDataEntry entry : expectedDataEntires) {
+    protected boolean compareRewardsData(RewardsBalanceEntry[] expectedDataEntires, RewardsBalanceEntry[] dataEntires) {
+        for (RewardsBalanceEntry entry : expectedDataEntires) {
             if (!containsRewardsData(entry, dataEntires)) {
                 return false;
             }
@@ -197,9 +197,10 @@ class LoansTestBase extends UnitTest {
         return true;
     }
 
-    private boolean containsRewardsData(RewardsDataEntry expectedData, RewardsDataEntry[] dataEntires) {
-        for (RewardsDataEntry data : dataEntires) {
-            if (data._user.equals(expectedData._user) && data._balance.equals(expectedData._balance)) {
+    private boolean containsRewardsData(RewardsBalanceEntry expectedData, RewardsBalanceEntry[] dataEntires) {
+        for (RewardsBalanceEntry data : dataEntires) {
+            if (data._user.equals(expectedData._user) && data._balance.equals(expectedData._balance)
+                    && data._newBalance.equals(expectedData._newBalance)) {
                 return true;
             }
         }
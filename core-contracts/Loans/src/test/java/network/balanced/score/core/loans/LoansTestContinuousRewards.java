@@ -17,7 +17,7 @@
 package network.balanced.score.core.loans;
 
 import com.iconloop.score.test.Account;
-import network.balanced.score.lib.structs.RewardsDataEntry;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,7 +27,10 @@ import java.math.BigInteger;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.verify;
@@ -146,6 +149,135 @@ class LoansTestContinuousRewards extends LoansTestBase {
         assertTrue((boolean) loans.call("hasDebt", account.getAddress()));
     }
 
+    @Test
+    void migrateUserData_TotalDebtCountedOnce() {
+        // Arrange
+        governanceCall("setContinuousRewardsDay", BigInteger.valueOf(100000));
+        Account account = accounts.get(0);
+
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedFee = calculateFee(loan);
+        BigInteger loanToRepay = BigInteger.valueOf(50).multiply(EXA);
+        BigInteger expectedDebt = loan.add(expectedFee).subtract(loanToRepay);
+
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Act
+        enableContinuousRewards();
+        loans.invoke(account, "migrateUserData", account.getAddress());
+        loans.invoke(account, "returnAsset", "bnUSD", loanToRepay, true);
+        loans.invoke(account, "migrateUserData", account.getAddress());
+
+        // Assert
+        verifyPosition(account.getAddress(), collateral, expectedDebt);
+        Map<String, BigInteger> balanceAndSupply = (Map<String, BigInteger>) loans.call("getBalanceAndSupply",
+                "Loans", account.getAddress());
+        assertEquals(expectedDebt, balanceAndSupply.get("_balance"));
+        assertEquals(expectedDebt, balanceAndSupply.get("_totalSupply"));
+    }
+
+    @Test
+    void migratePositions() {
+        // Arrange
+        governanceCall("setContinuousRewardsDay", BigInteger.valueOf(100000));
+        Account account = accounts.get(0);
+        Account secondAccount = accounts.get(1);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedDebt = loan.add(calculateFee(loan));
+
+        takeLoanICX(account, "bnUSD", collateral, loan);
+        takeLoanICX(secondAccount, "bnUSD", collateral, loan);
+        enableContinuousRewards();
+
+        // Act & Assert
+        loans.invoke(account, "migratePositions", 1);
+        assertFalse((boolean) loans.call("getPositionsMigrated"));
+
+        loans.invoke(account, "migratePositions", 1);
+        assertTrue((boolean) loans.call("getPositionsMigrated"));
+
+        loans.invoke(account, "migratePositions", 1);
+        verifyPosition(account.getAddress(), collateral, expectedDebt);
+        verifyPosition(secondAccount.getAddress(), collateral, expectedDebt);
+        Map<String, BigInteger> balanceAndSupply = (Map<String, BigInteger>) loans.call("getBalanceAndSupply",
+                "Loans", account.getAddress());
+        assertEquals(expectedDebt, balanceAndSupply.get("_balance"));
+        assertEquals(expectedDebt.multiply(BigInteger.TWO), balanceAndSupply.get("_totalSupply"));
+    }
+
+    @Test
+    void migratePositions_LegacyFreeMode() {
+        // Arrange
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedDebt = loan.add(calculateFee(loan));
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Act
+        loans.invoke(account, "migratePositions", 10);
+        takeLoanICX(account, "bnUSD", collateral, loan);
+
+        // Assert
+        Executable moveContinuousRewardsDay = () -> governanceCall("setContinuousRewardsDay", BigInteger.valueOf(100000));
+        expectErrorMessage(moveContinuousRewardsDay, "Continuous rewards day can not be changed in legacy free mode.");
+
+        verifyPosition(account.getAddress(), collateral.multiply(BigInteger.TWO), expectedDebt.multiply(BigInteger.TWO));
+        assertTrue((boolean) loans.call("hasDebt", account.getAddress()));
+        verifyTotalDebt(expectedDebt.multiply(BigInteger.TWO));
+    }
+
+    @Test
+    void pruneSnapshots() {
+        // Arrange
+        governanceCall("setContinuousRewardsDay", BigInteger.valueOf(100000));
+        Account account = accounts.get(0);
+        BigInteger collateral = BigInteger.valueOf(1000).multiply(EXA);
+        BigInteger loan = BigInteger.valueOf(100).multiply(EXA);
+        BigInteger expectedDebt = loan.add(calculateFee(loan)).multiply(BigInteger.TWO);
+
+        takeLoanICX(account, "bnUSD", collateral, loan);
+        BigInteger firstDay = (BigInteger) loans.call("getDay");
+        loans.invoke(rewards.account, "precompute", firstDay, BigInteger.valueOf(0));
+        loans.invoke(rewards.account, "precompute", firstDay, BigInteger.valueOf(1));
+        sm.getBlock().increase(DAY);
+
+        takeLoanICX(account, "bnUSD", collateral, loan);
+        BigInteger secondDay = (BigInteger) loans.call("getDay");
+        loans.invoke(rewards.account, "precompute", secondDay, BigInteger.valueOf(0));
+        loans.invoke(rewards.account, "precompute", secondDay, BigInteger.valueOf(1));
+        sm.getBlock().increase(DAY);
+
+        Map<String, Object> firstSnapshot = (Map<String, Object>) loans.call("getSnapshot", firstDay);
+        assertTrue(((BigInteger) firstSnapshot.get("total_mining_debt")).signum() > 0);
+        assertEquals(1, firstSnapshot.get("mining_count"));
+
+        Executable beforeContinuousRewards = () -> governanceCall("pruneSnapshots", 100);
+        expectErrorMessage(beforeContinuousRewards, "Snapshots can only be pruned once continuous rewards are active.");
+
+        // Act
+        enableContinuousRewards();
+        Executable notGovernance = () -> loans.invoke(account, "pruneSnapshots", 100);
+        expectErrorMessage(notGovernance, "Authorization Check: Authorization failed.");
+        governanceCall("pruneSnapshots", 1);
+        governanceCall("pruneSnapshots", 100);
+
+        // Assert
+        firstSnapshot = (Map<String, Object>) loans.call("getSnapshot", firstDay);
+        assertEquals(BigInteger.ZERO, firstSnapshot.get("total_mining_debt"));
+        assertEquals(0, firstSnapshot.get("mining_count"));
+
+        Map<String, Object> lastSnapshot = (Map<String, Object>) loans.call("getSnapshot", secondDay);
+        assertTrue(((BigInteger) lastSnapshot.get("total_mining_debt")).signum() > 0);
+        assertEquals(1, lastSnapshot.get("mining_count"));
+
+        verify(loansSpy).SnapshotsPruned(anyInt(), any(BigInteger.class), eq(false));
+        verify(loansSpy).SnapshotsPruned(anyInt(), any(BigInteger.class), eq(true));
+        verifyPosition(account.getAddress(), collateral.multiply(BigInteger.TWO), expectedDebt);
+    }
+
     @Test
     void depositAndBorrow_rewardsUpdate_noInitalLoan() {
         // Arrange
@@ -161,7 +293,8 @@ class LoansTestContinuousRewards extends LoansTestBase {
 
         // Assert
         verifyPosition(account.getAddress(), collateral, loan.add(expectedFee));
-        verify(rewards.mock).updateRewardsData("Loans", BigInteger.ZERO, account.getAddress(), intialDebt);
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", BigInteger.ZERO, account.getAddress(), intialDebt,
+                loan.add(expectedFee), loan.add(expectedFee));
     }
 
     @Test
@@ -209,8 +342,11 @@ class LoansTestContinuousRewards extends LoansTestBase {
         verifyPosition(account.getAddress(), collateral, loan.subtract(loanToRepay).add(expectedFee));
 
         verifyTotalDebt(loan.add(expectedFee).subtract(loanToRepay));
-        verify(rewards.mock).updateRewardsData("Loans", BigInteger.ZERO, account.getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", loan.add(expectedFee), account.getAddress(), loan.add(expectedFee));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", BigInteger.ZERO, account.getAddress(), BigInteger.ZERO,
+                loan.add(expectedFee), loan.add(expectedFee));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", loan.add(expectedFee), account.getAddress(),
+                loan.add(expectedFee), loan.add(expectedFee).subtract(loanToRepay),
+                loan.add(expectedFee).subtract(loanToRepay));
     }
 
     @Test
@@ -271,26 +407,34 @@ class LoansTestContinuousRewards extends LoansTestBase {
         verifyPosition(accounts.get(2).getAddress(), accountTwoCollateral.subtract(accountTwoExpectedCollateralSold), accountTwoDebt.subtract(accountTwoExpectedDebtRepaid));
 
 
-        RewardsDataEntry accountZeroUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountZeroUpdate = new RewardsBalanceEntry();
         accountZeroUpdate._user = accounts.get(0).getAddress();
         accountZeroUpdate._balance = accountZeroDebt;
+        accountZeroUpdate._newBalance = accountZeroDebt.subtract(accountZeroExpectedDebtRepaid);
 
-        RewardsDataEntry accountOneUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountOneUpdate = new RewardsBalanceEntry();
         accountOneUpdate._user = accounts.get(1).getAddress();
         accountOneUpdate._balance = accountOneDebt;
+        accountOneUpdate._newBalance = accountOneDebt.subtract(accountOneExpectedDebtRepaid);
 
-        RewardsDataEntry accountTwoUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountTwoUpdate = new RewardsBalanceEntry();
         accountTwoUpdate._user = accounts.get(2).getAddress();
         accountTwoUpdate._balance = accountTwoDebt;
+        accountTwoUpdate._newBalance = accountTwoDebt.subtract(accountTwoExpectedDebtRepaid);
 
 
-        RewardsDataEntry[] rewardsBatchList = new RewardsDataEntry[] {accountZeroUpdate, accountOneUpdate, accountTwoUpdate};
+        RewardsBalanceEntry[] rewardsBatchList = new RewardsBalanceEntry[] {accountZeroUpdate, accountOneUpdate, accountTwoUpdate};
 
         verifyTotalDebt(oldTotalDebt.subtract(expectedBnusdRecived));
-        verify(rewards.mock).updateRewardsData("Loans", BigInteger.ZERO, accounts.get(0).getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", accountZeroDebt, accounts.get(1).getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", accountOneDebt.add(accountZeroDebt), accounts.get(2).getAddress(), BigInteger.ZERO);        
-        verify(rewards.mock).updateBatchRewardsData(eq("Loans"), eq(oldTotalDebt), argThat(arg -> compareRewardsData(rewardsBatchList, arg)));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", BigInteger.ZERO, accounts.get(0).getAddress(),
+                BigInteger.ZERO, accountZeroDebt, accountZeroDebt);
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", accountZeroDebt, accounts.get(1).getAddress(),
+                BigInteger.ZERO, accountZeroDebt.add(accountOneDebt), accountOneDebt);
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", accountOneDebt.add(accountZeroDebt),
+                accounts.get(2).getAddress(), BigInteger.ZERO, accountZeroDebt.add(accountOneDebt).add(accountTwoDebt),
+                accountTwoDebt);
+        verify(rewards.mock).updateBatchRewardsDataWithBalance(eq("Loans"), eq(oldTotalDebt),
+                eq(oldTotalDebt.subtract(expectedBnusdRecived)), argThat(arg -> compareRewardsData(rewardsBatchList, arg)));
     }
 
     @Test
@@ -351,26 +495,34 @@ class LoansTestContinuousRewards extends LoansTestBase {
         BigInteger accountTwoExpectedDebtAdded = rebalanceAmount.multiply(accountTwoDebt).divide(totalDebt);
         verifyPosition(accounts.get(2).getAddress(), accountTwoCollateral.add(accountTwoExpectedCollateralAdded), accountTwoDebt.add(accountTwoExpectedDebtAdded));
 
-        RewardsDataEntry accountZeroUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountZeroUpdate = new RewardsBalanceEntry();
         accountZeroUpdate._user = accounts.get(0).getAddress();
         accountZeroUpdate._balance = accountZeroDebt;
+        accountZeroUpdate._newBalance = accountZeroDebt.add(accountZeroExpectedDebtAdded);
 
-        RewardsDataEntry accountOneUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountOneUpdate = new RewardsBalanceEntry();
         accountOneUpdate._user = accounts.get(1).getAddress();
         accountOneUpdate._balance = accountOneDebt;
+        accountOneUpdate._newBalance = accountOneDebt.add(accountOneExpectedDebtAdded);
 
-        RewardsDataEntry accountTwoUpdate = new RewardsDataEntry();
+        RewardsBalanceEntry accountTwoUpdate = new RewardsBalanceEntry();
         accountTwoUpdate._user = accounts.get(2).getAddress();
         accountTwoUpdate._balance = accountTwoDebt;
+        accountTwoUpdate._newBalance = accountTwoDebt.add(accountTwoExpectedDebtAdded);
 
 
-        RewardsDataEntry[] rewardsBatchList = new RewardsDataEntry[] {accountZeroUpdate, accountOneUpdate, accountTwoUpdate};
+        RewardsBalanceEntry[] rewardsBatchList = new RewardsBalanceEntry[] {accountZeroUpdate, accountOneUpdate, accountTwoUpdate};
 
         verifyTotalDebt(originalTotalDebt.add(originalRebalanceAmount));
-        verify(rewards.mock).updateRewardsData("Loans", BigInteger.ZERO, accounts.get(0).getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", accountZeroDebt, accounts.get(1).getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", accountOneDebt.add(accountZeroDebt), accounts.get(2).getAddress(), BigInteger.ZERO);   
-        verify(rewards.mock).updateBatchRewardsData(eq("Loans"), eq(originalTotalDebt), argThat(arg -> compareRewardsData(rewardsBatchList, arg)));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", BigInteger.ZERO, accounts.get(0).getAddress(),
+                BigInteger.ZERO, accountZeroDebt, accountZeroDebt);
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", accountZeroDebt, accounts.get(1).getAddress(),
+                BigInteger.ZERO, accountZeroDebt.add(accountOneDebt), accountOneDebt);
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", accountOneDebt.add(accountZeroDebt),
+                accounts.get(2).getAddress(), BigInteger.ZERO, accountZeroDebt.add(accountOneDebt).add(accountTwoDebt),
+                accountTwoDebt);
+        verify(rewards.mock).updateBatchRewardsDataWithBalance(eq("Loans"), eq(originalTotalDebt),
+                eq(originalTotalDebt.add(originalRebalanceAmount)), argThat(arg -> compareRewardsData(rewardsBatchList, arg)));
     }
 
 
@@ -409,7 +561,9 @@ class LoansTestContinuousRewards extends LoansTestBase {
         assertEquals(expectedLiquidationPool, bnusdAsset.get("liquidation_pool"));
 
         verifyTotalDebt(BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", BigInteger.ZERO, account.getAddress(), BigInteger.ZERO);
-        verify(rewards.mock).updateRewardsData("Loans", loan.add(expectedFee), account.getAddress(), loan.add(expectedFee));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", BigInteger.ZERO, account.getAddress(), BigInteger.ZERO,
+                loan.add(expectedFee), loan.add(expectedFee));
+        verify(rewards.mock).updateRewardsDataWithBalance("Loans", loan.add(expectedFee), account.getAddress(),
+                loan.add(expectedFee), BigInteger.ZERO, BigInteger.ZERO);
     }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.asset;
+
+import score.Address;
+import score.Context;
+import score.VarDB;
+import score.annotation.External;
+
+import java.math.BigInteger;
+
+/**
+ * Contract wrapping the asset database, with helpers that change an asset and check its market within one block.
+ * Values read back in the same transaction as a change are stored, so that they can be compared with a later read.
+ */
+public class AssetScore {
+    private final VarDB<Boolean> observedActive = Context.newVarDB("observed_active", Boolean.class);
+    private final VarDB<Integer> observedSymbols = Context.newVarDB("observed_symbols", Integer.class);
+    private final VarDB<Integer> observedActiveSymbols = Context.newVarDB("observed_active_symbols", Integer.class);
+
+    @External
+    public void addAsset(Address address, boolean active, boolean collateral) {
+        AssetDB.addAsset(address, active, collateral);
+    }
+
+    @External
+    public void addAssetAndCount(Address address, boolean active, boolean collateral) {
+        AssetDB.getAssetSymbols();
+        AssetDB.getActiveAssetSymbols();
+        AssetDB.addAsset(address, active, collateral);
+        observedSymbols.set(AssetDB.getAssetSymbols().size());
+        observedActiveSymbols.set(AssetDB.getActiveAssetSymbols().size());
+    }
+
+    @External
+    public void toggleActive(String symbol) {
+        Asset asset = AssetDB.getAsset(symbol);
+        asset.setActive(!asset.isActive());
+        observedActive.set(AssetDB.getAsset(symbol).isActive());
+    }
+
+    @External
+    public void setBadDebt(String symbol, BigInteger badDebt) {
+        AssetDB.getAsset(symbol).setBadDebt(badDebt);
+    }
+
+    @External
+    public void updateDeadMarket(String symbol) {
+        AssetDB.getAsset(symbol).updateDeadMarket();
+    }
+
+    @External
+    public void updateDeadMarketTwice(String symbol) {
+        Asset asset = AssetDB.getAsset(symbol);
+        asset.updateDeadMarket();
+        asset.updateDeadMarket();
+    }
+
+    @External
+    public void setBadDebtAndUpdate(String symbol, BigInteger badDebt) {
+        Asset asset = AssetDB.getAsset(symbol);
+        asset.updateDeadMarket();
+        asset.setBadDebt(badDebt);
+        asset.updateDeadMarket();
+    }
+
+    @External
+    public void setLiquidationPoolAndUpdate(String symbol, BigInteger liquidationPool) {
+        Asset asset = AssetDB.getAsset(symbol);
+        asset.updateDeadMarket();
+        asset.setLiquidationPool(liquidationPool);
+        asset.updateDeadMarket();
+    }
+
+    @External(readonly = true)
+    public boolean isActive(String symbol) {
+        return AssetDB.getAsset(symbol).isActive();
+    }
+
+    @External(readonly = true)
+    public int getAssetSymbolsCount() {
+        return AssetDB.getAssetSymbols().size();
+    }
+
+    @External(readonly = true)
+    public int getActiveAssetSymbolsCount() {
+        return AssetDB.getActiveAssetSymbols().size();
+    }
+
+    @External(readonly = true)
+    public Boolean getObservedActive() {
+        return observedActive.get();
+    }
+
+    @External(readonly = true)
+    public Integer getObservedSymbols() {
+        return observedSymbols.get();
+    }
+
+    @External(readonly = true)
+    public Integer getObservedActiveSymbols() {
+        return observedActiveSymbols.get();
+    }
+
+    @External(readonly = true)
+    public boolean isDeadMarket(String symbol) {
+        return AssetDB.getAsset(symbol).isDeadMarket();
+    }
+}
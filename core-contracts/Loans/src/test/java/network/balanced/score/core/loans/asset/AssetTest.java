@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.asset;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import network.balanced.score.lib.interfaces.BalancedDollar;
+import network.balanced.score.lib.interfaces.Sicx;
+import network.balanced.score.lib.test.mock.MockContract;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static network.balanced.score.lib.utils.Constants.EXA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssetTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final BigInteger TOTAL_SUPPLY = BigInteger.valueOf(100).multiply(EXA);
+
+    private MockContract<Sicx> sicx;
+    private MockContract<BalancedDollar> bnusd;
+    private Score assets;
+
+    @BeforeEach
+    void setup() throws Exception {
+        sicx = new MockContract<>(Sicx.class, sm, owner);
+        bnusd = new MockContract<>(BalancedDollar.class, sm, owner);
+        when(sicx.mock.symbol()).thenReturn("sICX");
+        when(sicx.mock.priceInLoop()).thenReturn(EXA);
+        when(bnusd.mock.symbol()).thenReturn("bnUSD");
+        when(bnusd.mock.priceInLoop()).thenReturn(EXA);
+        when(bnusd.mock.totalSupply()).thenReturn(TOTAL_SUPPLY);
+
+        assets = sm.deploy(owner, AssetScore.class);
+        assets.invoke(owner, "addAsset", sicx.getAddress(), true, true);
+        assets.invoke(owner, "addAsset", bnusd.getAddress(), true, false);
+    }
+
+    @Test
+    void toggleActive() {
+        // Act
+        assets.invoke(owner, "toggleActive", "bnUSD");
+
+        // Assert
+        assertFalse((boolean) assets.call("getObservedActive"));
+        assertFalse((boolean) assets.call("isActive", "bnUSD"));
+
+        // Act
+        assets.invoke(owner, "toggleActive", "bnUSD");
+
+        // Assert
+        assertTrue((boolean) assets.call("getObservedActive"));
+        assertTrue((boolean) assets.call("isActive", "bnUSD"));
+        assertTrue((boolean) assets.call("isActive", "sICX"));
+    }
+
+    @Test
+    void addAsset_symbolsReadInSameTransaction() throws Exception {
+        // Arrange
+        MockContract<BalancedDollar> token = new MockContract<>(BalancedDollar.class, sm, owner);
+        when(token.mock.symbol()).thenReturn("bnXLM");
+
+        // Act
+        assets.invoke(owner, "addAssetAndCount", token.getAddress(), true, false);
+
+        // Assert
+        assertEquals(3, assets.call("getObservedSymbols"));
+        assertEquals(2, assets.call("getObservedActiveSymbols"));
+        assertEquals(3, assets.call("getAssetSymbolsCount"));
+        assertEquals(2, assets.call("getActiveAssetSymbolsCount"));
+        assertTrue((boolean) assets.call("isActive", "bnXLM"));
+    }
+
+    @Test
+    void updateDeadMarket_noBadDebt() {
+        // Act
+        assets.invoke(owner, "updateDeadMarket", "bnUSD");
+
+        // Assert
+        assertFalse((boolean) assets.call("isDeadMarket", "bnUSD"));
+        verify(bnusd.mock, never()).totalSupply();
+        verify(bnusd.mock, never()).priceInLoop();
+    }
+
+    @Test
+    void updateDeadMarket_badDebtCleared() {
+        // Arrange
+        assets.invoke(owner, "setBadDebt", "bnUSD", BigInteger.valueOf(60).multiply(EXA));
+        assets.invoke(owner, "updateDeadMarket", "bnUSD");
+        assertTrue((boolean) assets.call("isDeadMarket", "bnUSD"));
+
+        // Act
+        assets.invoke(owner, "setBadDebt", "bnUSD", BigInteger.ZERO);
+        assets.invoke(owner, "updateDeadMarket", "bnUSD");
+
+        // Assert
+        assertFalse((boolean) assets.call("isDeadMarket", "bnUSD"));
+        verify(bnusd.mock, times(1)).totalSupply();
+    }
+
+    @Test
+    void updateDeadMarket_oncePerBlock() {
+        // Arrange
+        assets.invoke(owner, "setBadDebt", "bnUSD", BigInteger.valueOf(60).multiply(EXA));
+
+        // Act
+        assets.invoke(owner, "updateDeadMarketTwice", "bnUSD");
+
+        // Assert
+        assertTrue((boolean) assets.call("isDeadMarket", "bnUSD"));
+        verify(bnusd.mock, times(1)).totalSupply();
+
+        // Act
+        assets.invoke(owner, "updateDeadMarket", "bnUSD");
+
+        // Assert
+        verify(bnusd.mock, times(2)).totalSupply();
+    }
+
+    @Test
+    void updateDeadMarket_setBadDebtInSameBlock() {
+        // Arrange
+        assets.invoke(owner, "setBadDebt", "bnUSD", BigInteger.valueOf(60).multiply(EXA));
+
+        // Act
+        assets.invoke(owner, "setBadDebtAndUpdate", "bnUSD", EXA);
+
+        // Assert
+        assertFalse((boolean) assets.call("isDeadMarket", "bnUSD"));
+        verify(bnusd.mock, times(2)).totalSupply();
+    }
+
+    @Test
+    void updateDeadMarket_setLiquidationPoolInSameBlock() {
+        // Arrange
+        assets.invoke(owner, "setBadDebt", "bnUSD", BigInteger.valueOf(60).multiply(EXA));
+
+        // Act
+        assets.invoke(owner, "setLiquidationPoolAndUpdate", "bnUSD", BigInteger.valueOf(50).multiply(EXA));
+
+        // Assert
+        assertFalse((boolean) assets.call("isDeadMarket", "bnUSD"));
+        verify(bnusd.mock, times(2)).totalSupply();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.linkedlist;
+
+import org.junit.jupiter.api.Test;
+
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.INT_SIZE;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.readInt;
+import static network.balanced.score.core.loans.linkedlist.ByteCodec.writeInt;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ByteCodecTest {
+
+    @Test
+    void writeAndReadInt() {
+        int[] values = new int[]{0, 1, -1, 127, 128, 255, 256, 65536, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        byte[] data = new byte[values.length * INT_SIZE];
+
+        for (int i = 0; i < values.length; i++) {
+            writeInt(data, i * INT_SIZE, values[i]);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], readInt(data, i * INT_SIZE));
+        }
+    }
+
+    @Test
+    void writeInt_bigEndian() {
+        byte[] data = new byte[2 * INT_SIZE];
+
+        writeInt(data, INT_SIZE, 0x01020304);
+
+        assertArrayEquals(new byte[]{0, 0, 0, 0, 1, 2, 3, 4}, data);
+    }
+
+    @Test
+    void writeInt_negative() {
+        byte[] data = new byte[INT_SIZE];
+
+        writeInt(data, 0, -2);
+
+        assertArrayEquals(new byte[]{(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xfe}, data);
+        assertEquals(-2, readInt(data, 0));
+    }
+}
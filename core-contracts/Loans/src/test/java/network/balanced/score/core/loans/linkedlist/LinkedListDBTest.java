@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.linkedlist;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinkedListDBTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+
+    private Score list;
+
+    @BeforeEach
+    void setup() throws Exception {
+        list = sm.deploy(owner, LinkedListScore.class);
+    }
+
+    private void setupLegacyList() {
+        list.invoke(owner, "setLegacyNode", 1, BigInteger.valueOf(10), 2, 0);
+        list.invoke(owner, "setLegacyNode", 2, BigInteger.valueOf(20), 3, 1);
+        list.invoke(owner, "setLegacyNode", 3, BigInteger.valueOf(30), 0, 2);
+        list.invoke(owner, "setLegacyMetadata", 1, 3, 3);
+    }
+
+    @Test
+    void readBatch_legacyNodesNotWritten() {
+        // Arrange
+        setupLegacyList();
+        int nodeReadsBefore = LinkedListDB.getNodeReads();
+        int nodeWritesBefore = LinkedListDB.getNodeWrites();
+
+        // Act
+        list.invoke(owner, "readBatch", 3);
+
+        // Assert
+        assertEquals(3, LinkedListDB.getNodeReads() - nodeReadsBefore);
+        assertEquals(0, LinkedListDB.getNodeWrites() - nodeWritesBefore);
+        for (int id = 1; id <= 3; id++) {
+            assertTrue((Boolean) list.call("isLegacyNode", id));
+            assertFalse((Boolean) list.call("isBytesNode", id));
+        }
+    }
+
+    @Test
+    void set_legacyListKeepsFormat() {
+        // Arrange
+        setupLegacyList();
+        int nodeWritesBefore = LinkedListDB.getNodeWrites();
+
+        // Act
+        list.invoke(owner, "set", 2, BigInteger.valueOf(25));
+
+        // Assert
+        assertEquals(1, LinkedListDB.getNodeWrites() - nodeWritesBefore);
+        assertEquals(BigInteger.valueOf(25), list.call("nodeValue", 2));
+        assertEquals(3, list.call("getNextId", 2));
+        assertTrue((Boolean) list.call("isLegacyNode", 2));
+        assertFalse((Boolean) list.call("isBytesNode", 2));
+    }
+
+    @Test
+    void set_unchangedValueNotWritten() {
+        // Arrange
+        list.invoke(owner, "append", BigInteger.ONE, 1);
+        int nodeWritesBefore = LinkedListDB.getNodeWrites();
+
+        // Act
+        list.invoke(owner, "set", 1, BigInteger.ONE);
+
+        // Assert
+        assertEquals(0, LinkedListDB.getNodeWrites() - nodeWritesBefore);
+    }
+
+    @Test
+    void migrate() {
+        // Arrange
+        setupLegacyList();
+
+        // Act
+        list.invoke(owner, "migrate", 2);
+
+        // Assert
+        assertFalse((Boolean) list.call("isLegacyNode", 1));
+        assertFalse((Boolean) list.call("isLegacyNode", 2));
+        assertTrue((Boolean) list.call("isLegacyNode", 3));
+
+        // Act
+        list.invoke(owner, "migrate", 2);
+
+        // Assert
+        assertEquals(3, list.call("size"));
+        for (int id = 1; id <= 3; id++) {
+            assertFalse((Boolean) list.call("isLegacyNode", id));
+            assertTrue((Boolean) list.call("isBytesNode", id));
+            assertEquals(BigInteger.valueOf(id * 10L), list.call("nodeValue", id));
+        }
+        assertEquals(2, list.call("getNextId", 1));
+        assertEquals(3, list.call("getNextId", 2));
+    }
+
+    @Test
+    void remove_legacyNode() {
+        // Arrange
+        setupLegacyList();
+
+        // Act
+        list.invoke(owner, "remove", 2);
+
+        // Assert
+        assertEquals(2, list.call("size"));
+        assertEquals(3, list.call("getNextId", 1));
+        assertFalse((Boolean) list.call("isLegacyNode", 2));
+        assertTrue((Boolean) list.call("isLegacyNode", 1));
+        assertTrue((Boolean) list.call("isLegacyNode", 3));
+    }
+
+    @Test
+    void set_migratingListConvertsNode() {
+        // Arrange
+        setupLegacyList();
+        list.invoke(owner, "migrate", 1);
+
+        // Act
+        list.invoke(owner, "set", 3, BigInteger.valueOf(35));
+        list.invoke(owner, "migrate", 1);
+
+        // Assert
+        for (int id = 1; id <= 3; id++) {
+            assertFalse((Boolean) list.call("isLegacyNode", id));
+            assertTrue((Boolean) list.call("isBytesNode", id));
+        }
+        assertEquals(BigInteger.valueOf(10), list.call("nodeValue", 1));
+        assertEquals(BigInteger.valueOf(20), list.call("nodeValue", 2));
+        assertEquals(BigInteger.valueOf(35), list.call("nodeValue", 3));
+
+        int nodeWritesBefore = LinkedListDB.getNodeWrites();
+        list.invoke(owner, "migrate", 3);
+        assertEquals(0, LinkedListDB.getNodeWrites() - nodeWritesBefore);
+    }
+
+    @Test
+    void append_valuesRoundTrip() {
+        // Arrange
+        BigInteger[] values = new BigInteger[]{
+                BigInteger.ZERO,
+                BigInteger.ONE,
+                BigInteger.ONE.negate(),
+                BigInteger.valueOf(128),
+                BigInteger.valueOf(-129),
+                BigInteger.TEN.pow(40),
+                BigInteger.TEN.pow(40).negate()
+        };
+
+        // Act
+        for (int i = 0; i < values.length; i++) {
+            list.invoke(owner, "append", values[i], i + 1);
+        }
+
+        // Assert
+        assertEquals(values.length, list.call("size"));
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], list.call("nodeValue", i + 1));
+            assertTrue((Boolean) list.call("isBytesNode", i + 1));
+            assertFalse((Boolean) list.call("isLegacyNode", i + 1));
+        }
+        assertEquals(2, list.call("getNextId", 1));
+        assertEquals(values.length, list.call("getNextId", values.length - 1));
+    }
+
+    @Test
+    void migrate_legacyValuesRoundTrip() {
+        // Arrange
+        BigInteger negative = BigInteger.TEN.pow(30).negate();
+        list.invoke(owner, "setLegacyNode", 1, BigInteger.ZERO, 2, 0);
+        list.invoke(owner, "setLegacyNode", 2, negative, 0, 1);
+        list.invoke(owner, "setLegacyMetadata", 1, 2, 2);
+
+        // Act
+        list.invoke(owner, "migrate", 2);
+
+        // Assert
+        assertTrue((Boolean) list.call("isBytesNode", 1));
+        assertTrue((Boolean) list.call("isBytesNode", 2));
+        assertEquals(BigInteger.ZERO, list.call("nodeValue", 1));
+        assertEquals(negative, list.call("nodeValue", 2));
+        assertEquals(2, list.call("getNextId", 1));
+        assertEquals(2, list.call("size"));
+    }
+
+    @Test
+    void remove_cursorNodeMovesCursorToNext() {
+        // Arrange
+        for (int id = 1; id <= 4; id++) {
+            list.invoke(owner, "append", BigInteger.valueOf(id * 10L), id);
+        }
+        list.invoke(owner, "readBatch", 1);
+        assertEquals(2, list.call("getCursor"));
+
+        // Act
+        list.invoke(owner, "remove", 2);
+
+        // Assert
+        assertEquals(3, list.call("getCursor"));
+        list.invoke(owner, "readBatch", 1);
+        assertEquals(4, list.call("getCursor"));
+    }
+
+    @Test
+    void remove_cursorTailMovesCursorToHead() {
+        // Arrange
+        for (int id = 1; id <= 3; id++) {
+            list.invoke(owner, "append", BigInteger.valueOf(id * 10L), id);
+        }
+        list.invoke(owner, "readBatch", 2);
+        assertEquals(3, list.call("getCursor"));
+
+        // Act
+        list.invoke(owner, "remove", 3);
+
+        // Assert
+        assertEquals(1, list.call("getCursor"));
+        list.invoke(owner, "readBatch", 1);
+        assertEquals(2, list.call("getCursor"));
+    }
+}
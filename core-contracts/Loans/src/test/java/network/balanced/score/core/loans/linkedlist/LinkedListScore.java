@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.linkedlist;
+
+import score.Context;
+import score.VarDB;
+import score.annotation.External;
+
+import java.math.BigInteger;
+
+/**
+ * Contract wrapping a LinkedListDB, with helpers to store nodes and metadata in the legacy string format.
+ */
+public class LinkedListScore {
+    private static final String LIST = "list";
+    private static final String LIST_NAME = LIST + "_LINKED_LISTDB";
+
+    private VarDB<String> legacyNode(int id) {
+        return Context.newVarDB(id + LIST_NAME + "_Node_node_data", String.class);
+    }
+
+    private VarDB<byte[]> nodeBytes(int id) {
+        return Context.newVarDB(id + LIST_NAME + "_Node_node_bytes", byte[].class);
+    }
+
+    @External
+    public void setLegacyNode(int id, BigInteger value, int next, int prev) {
+        legacyNode(id).set(value + "|" + next + "|" + prev);
+    }
+
+    @External
+    public void setLegacyMetadata(int headId, int tailId, int size) {
+        Context.newVarDB(LIST_NAME + "_metadata", String.class).set(headId + "|" + tailId + "|" + size);
+    }
+
+    @External(readonly = true)
+    public boolean isLegacyNode(int id) {
+        return legacyNode(id).get() != null;
+    }
+
+    @External(readonly = true)
+    public boolean isBytesNode(int id) {
+        return nodeBytes(id).get() != null;
+    }
+
+    @External
+    public void append(BigInteger value, int id) {
+        new LinkedListDB(LIST).append(value, id);
+    }
+
+    @External
+    public void remove(int id) {
+        new LinkedListDB(LIST).remove(id);
+    }
+
+    @External
+    public void set(int id, BigInteger value) {
+        new LinkedListDB(LIST).set(id, value);
+    }
+
+    @External
+    public void readBatch(int count) {
+        LinkedListDB list = new LinkedListDB(LIST);
+        list.startBatch();
+        list.readFromCursor(count);
+        list.flush();
+    }
+
+    @External(readonly = true)
+    public int getCursor() {
+        return Context.newVarDB(LIST + "_cursor", Integer.class).getOrDefault(0);
+    }
+
+    @External
+    public void migrate(int count) {
+        new LinkedListDB(LIST).migrate(count);
+    }
+
+    @External(readonly = true)
+    public BigInteger nodeValue(int id) {
+        return new LinkedListDB(LIST).nodeValue(id);
+    }
+
+    @External(readonly = true)
+    public int getNextId(int id) {
+        return new LinkedListDB(LIST).getNextId(id);
+    }
+
+    @External(readonly = true)
+    public int size() {
+        return new LinkedListDB(LIST).size();
+    }
+}
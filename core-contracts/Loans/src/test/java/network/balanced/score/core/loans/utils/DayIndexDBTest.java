@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.utils;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static network.balanced.score.lib.test.UnitTest.expectErrorMessage;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DayIndexDBTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final int[] DAYS = new int[]{2, 5, 9, 14, 20};
+
+    private Score index;
+
+    @BeforeEach
+    void setup() throws Exception {
+        index = sm.deploy(owner, DayIndexScore.class);
+    }
+
+    private void verifyFloor() {
+        assertEquals(-1, index.call("floor", 1));
+        assertEquals(2, index.call("floor", 2));
+        assertEquals(2, index.call("floor", 4));
+        assertEquals(5, index.call("floor", 5));
+        assertEquals(5, index.call("floor", 8));
+        assertEquals(9, index.call("floor", 10));
+        assertEquals(14, index.call("floor", 14));
+        assertEquals(14, index.call("floor", 19));
+        assertEquals(20, index.call("floor", 20));
+        assertEquals(20, index.call("floor", 100));
+    }
+
+    @Test
+    void floor() {
+        for (int day : DAYS) {
+            index.invoke(owner, "add", day);
+        }
+
+        verifyFloor();
+        assertEquals(DAYS.length, index.call("size"));
+        for (int i = 0; i < DAYS.length; i++) {
+            assertEquals(DAYS[i], index.call("get", i));
+        }
+        assertEquals("2|14|20|5", index.call("getBounds"));
+    }
+
+    @Test
+    void floor_legacy() {
+        for (int day : DAYS) {
+            index.invoke(owner, "addLegacy", day);
+        }
+
+        verifyFloor();
+        assertEquals(DAYS.length, index.call("size"));
+        assertNull(index.call("getBounds"));
+
+        index.invoke(owner, "load", 0);
+        assertNull(index.call("getBounds"));
+
+        index.invoke(owner, "add", 25);
+        assertEquals(20, index.call("floor", 24));
+        assertEquals(25, index.call("floor", 25));
+        assertEquals(14, index.call("floor", 15));
+        assertEquals("2|20|25|6", index.call("getBounds"));
+    }
+
+    @Test
+    void add_legacyWithoutLoad() {
+        for (int day : DAYS) {
+            index.invoke(owner, "addLegacy", day);
+        }
+
+        index.invoke(owner, "add", 25);
+
+        assertEquals("2|20|25|6", index.call("getBounds"));
+        assertEquals(6, index.call("size"));
+        assertEquals(9, index.call("get", 2));
+    }
+
+    @Test
+    void empty() {
+        assertEquals(0, index.call("size"));
+        assertEquals(-1, index.call("floor", 10));
+
+        Executable outOfRange = () -> index.invoke(owner, "load", 0);
+        expectErrorMessage(outOfRange, "DayIndexDB: Index 0 out of range.");
+        assertNull(index.call("getBounds"));
+
+        index.invoke(owner, "add", 3);
+        assertEquals(3, index.call("get", 0));
+        assertEquals(-1, index.call("floor", 2));
+        assertEquals(3, index.call("floor", 3));
+        assertEquals("3|0|3|1", index.call("getBounds"));
+    }
+
+    @Test
+    void get_outOfRange() {
+        for (int day : DAYS) {
+            index.invoke(owner, "add", day);
+        }
+
+        Executable negative = () -> index.invoke(owner, "load", -1);
+        expectErrorMessage(negative, "DayIndexDB: Index -1 out of range.");
+        Executable pastEnd = () -> index.invoke(owner, "load", DAYS.length);
+        expectErrorMessage(pastEnd, "DayIndexDB: Index 5 out of range.");
+    }
+}
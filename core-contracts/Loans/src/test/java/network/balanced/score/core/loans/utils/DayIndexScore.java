@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.loans.utils;
+
+import score.ArrayDB;
+import score.Context;
+import score.VarDB;
+import score.annotation.External;
+
+/**
+ * Contract wrapping a DayIndexDB, with a helper to add days the way lists created before the bounds record did.
+ */
+public class DayIndexScore {
+    private final ArrayDB<Integer> days = Context.newArrayDB("days", Integer.class);
+    private final VarDB<String> bounds = Context.newVarDB("bounds", String.class);
+
+    private DayIndexDB index() {
+        return new DayIndexDB(days, bounds);
+    }
+
+    @External
+    public void addLegacy(int day) {
+        days.add(day);
+    }
+
+    @External
+    public void add(int day) {
+        index().add(day);
+    }
+
+    @External
+    public void load(int index) {
+        index().get(index);
+    }
+
+    @External(readonly = true)
+    public int get(int index) {
+        return index().get(index);
+    }
+
+    @External(readonly = true)
+    public int floor(int day) {
+        return index().floor(day);
+    }
+
+    @External(readonly = true)
+    public int size() {
+        return index().size();
+    }
+
+    @External(readonly = true)
+    public String getBounds() {
+        return bounds.get();
+    }
+}
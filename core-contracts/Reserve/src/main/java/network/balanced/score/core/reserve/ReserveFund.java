@@ -41,6 +41,7 @@ public class ReserveFund {
     private static final String BALN = "baln";
     private static final String SICX = "sicx";
     private static final String AWARDS = "awards";
+    private static final String COMPACT_EVENTS = "compact_events";
 
     public static final String TAG = "BalancedReserveFund";
 
@@ -52,6 +53,7 @@ public class ReserveFund {
     private final VarDB<BigInteger> baln = Context.newVarDB(BALN, BigInteger.class);
     public static final VarDB<BigInteger> sicx = Context.newVarDB(SICX, BigInteger.class);
     private final BranchDB<Address, DictDB<Address, BigInteger>> awards = Context.newBranchDB(AWARDS, BigInteger.class);
+    private final VarDB<Boolean> compactEvents = Context.newVarDB(COMPACT_EVENTS, Boolean.class);
 
     public ReserveFund(@Optional Address governance) {
         if (governance != null) {
@@ -69,6 +71,10 @@ public class ReserveFund {
     protected void TokenTransfer(Address recipient, BigInteger amount, String note) {
     }
 
+    @EventLog(indexed = 2)
+    protected void TokenSent(Address token, Address recipient, BigInteger amount) {
+    }
+
     @External(readonly = true)
     public String name() {
         return "Balanced Reserve Fund";
@@ -98,6 +104,17 @@ public class ReserveFund {
         return admin.get();
     }
 
+    @External
+    public void setCompactEvents(boolean _enabled) {
+        onlyGovernance();
+        compactEvents.set(_enabled);
+    }
+
+    @External(readonly = true)
+    public boolean getCompactEvents() {
+        return compactEvents.getOrDefault(false);
+    }
+
     @External
     public void setLoans(Address _address) {
         onlyAdmin();
@@ -244,11 +261,18 @@ public class ReserveFund {
     }
 
     private void sendToken(Address tokenAddress, Address to, BigInteger amount, String message) {
+        boolean compact = compactEvents.getOrDefault(false);
         String symbol = "";
         try {
-            symbol = (String) Context.call(tokenAddress, "symbol");
+            if (!compact) {
+                symbol = (String) Context.call(tokenAddress, "symbol");
+            }
             Context.call(tokenAddress, "transfer", to, amount, new byte[0]);
-            TokenTransfer(to, amount, message + amount + symbol + " sent to " + to);
+            if (compact) {
+                TokenSent(tokenAddress, to, amount);
+            } else {
+                TokenTransfer(to, amount, message + amount + symbol + " sent to " + to);
+            }
         } catch (Exception e) {
             Context.revert(TAG + amount + symbol + " not sent to " + to);
         }
@@ -19,13 +19,15 @@ package network.balanced.score.core.rewards;
 import score.Address;
 import score.ArrayDB;
 import score.Context;
+import score.DictDB;
 
 import static network.balanced.score.core.rewards.RewardsImpl.TAG;
 import static network.balanced.score.core.rewards.utils.RewardsConstants.DATASOURCE_DB_PREFIX;
-import static network.balanced.score.lib.utils.DBHelpers.contains;
 
 public class DataSourceDB {
     public static final ArrayDB<String> names = Context.newArrayDB("names", String.class);
+    // name => index in names + 1
+    private static final DictDB<String, Integer> indexes = Context.newDictDB("names_index", Integer.class);
 
     private DataSourceDB() {}
 
@@ -37,10 +39,30 @@ public class DataSourceDB {
         return names.size();
     }
 
+    public static boolean contains(String name) {
+        return indexes.get(name) != null;
+    }
+
+    /**
+     * Indexes data source names that were added before the index existed. Names that are already indexed are not
+     * written again, so repeated updates only read the index.
+     */
+    public static void indexNames() {
+        int namesCount = names.size();
+        for (int i = 0; i < namesCount; i++) {
+            String name = names.get(i);
+            if (indexes.get(name) == null) {
+                indexes.set(name, i + 1);
+            }
+        }
+    }
+
     public static void newSource(String name, Address address) {
-        Context.require(!contains(names, name), TAG + ": Data source already exists");
+        Context.require(!contains(name), TAG + ": Data source already exists");
+        Context.require(!name.contains("|"), TAG + ": Data source name can not contain |");
 
         names.add(name);
+        indexes.set(name, names.size());
         DataSourceImpl dataSource = get(name);
         dataSource.setName(name);
         dataSource.setDay(RewardsImpl.getDay());
@@ -50,8 +72,8 @@ public class DataSourceDB {
     public static void removeSource(String name) {
         // TODO Shouldn't be removed (Also add test cases)
         //  Avoid removing data source, must be disabled instead
-        // TODO Double check, remove one, return boolean
-        if (!contains(names, name)) {
+        Integer index = indexes.get(name);
+        if (index == null) {
             return;
         }
         DataSourceImpl dataSource = get(name);
@@ -59,16 +81,13 @@ public class DataSourceDB {
         dataSource.setDay(null);
         dataSource.setContractAddress(null);
 
-        // TODO Use helper method to remove from array db
+        indexes.set(name, null);
         String topSourceName = names.pop();
         if (topSourceName.equals(name)) {
             return;
         }
 
-        for(int i = 0; i < names.size(); i++) {
-            if (names.get(i).equals(name)) {
-                names.set(i, topSourceName);
-            }
-        }
-    }   
-}
\ No newline at end of file
+        names.set(index - 1, topSourceName);
+        indexes.set(topSourceName, index);
+    }
+}
@@ -48,6 +48,12 @@ public class DataSourceImpl {
             BigInteger.class);
     private final BranchDB<String, VarDB<BigInteger>> totalSupply = Context.newBranchDB("total_supply",
             BigInteger.class);
+    private final BranchDB<String, DictDB<Address, BigInteger>> userBalance = Context.newBranchDB("user_balance",
+            BigInteger.class);
+    private final BranchDB<String, DictDB<BigInteger, BigInteger>> distRunStart =
+            Context.newBranchDB("dist_run_start", BigInteger.class);
+    private final BranchDB<String, VarDB<BigInteger>> distIndexStart =
+            Context.newBranchDB("dist_index_start", BigInteger.class);
 
     private final String dbKey;
 
@@ -99,6 +105,55 @@ public class DataSourceImpl {
         totalDist.at(dbKey).set(day, value);
     }
     
+    /**
+     * Extends the distribution index with a day. The index holds, for every day since the index was started, the
+     * first day of the run of consecutive days with the same distribution that the day belongs to.
+     */
+    public void updateDistIndex(BigInteger day) {
+        DictDB<BigInteger, BigInteger> runs = distRunStart.at(dbKey);
+        BigInteger previousDay = day.subtract(BigInteger.ONE);
+        BigInteger previousRunStart = runs.get(previousDay);
+        if (previousRunStart == null) {
+            // The index only covers consecutive days, so it restarts after a day that was not indexed
+            distIndexStart.at(dbKey).set(day);
+            runs.set(day, day);
+        } else if (getTotalDist(day).equals(getTotalDist(previousDay))) {
+            runs.set(day, previousRunStart);
+        } else {
+            runs.set(day, day);
+        }
+    }
+
+    /**
+     * Returns the weight the whole days in [startDay, endDay) add to the total weight. Each day is rounded on its
+     * own as in the day by day loop, but a run of days with the same distribution is weighted with a single read.
+     *
+     * @return The weight of the days, or null if the range is not covered by the index
+     */
+    private BigInteger getFullDaysWeight(BigInteger startDay, BigInteger endDay, BigInteger totalSupply) {
+        BigInteger indexStart = distIndexStart.at(dbKey).get();
+        if (indexStart == null || startDay.compareTo(indexStart) < 0) {
+            return null;
+        }
+
+        DictDB<BigInteger, BigInteger> runs = distRunStart.at(dbKey);
+        if (runs.get(endDay.subtract(BigInteger.ONE)) == null) {
+            return null;
+        }
+
+        BigInteger weight = BigInteger.ZERO;
+        BigInteger day = endDay;
+        while (day.compareTo(startDay) > 0) {
+            BigInteger lastDayOfRun = day.subtract(BigInteger.ONE);
+            BigInteger runStart = runs.get(lastDayOfRun).max(startDay);
+            BigInteger dailyWeight = getTotalDist(lastDayOfRun).multiply(EXA).divide(totalSupply);
+            weight = weight.add(dailyWeight.multiply(day.subtract(runStart)));
+            day = runStart;
+        }
+
+        return weight;
+    }
+
     public BigInteger getDistPercent() {
         return distPercent.at(dbKey).getOrDefault(BigInteger.ZERO);
     }
@@ -124,6 +179,61 @@ public class DataSourceImpl {
     }
 
 
+    /**
+     * Stores the balance of a user and the total supply after an update reported by a data provider.
+     */
+    public void setBalanceAndSupply(Address user, BigInteger balance, BigInteger totalSupply) {
+        setBalance(user, balance);
+        setTotalSupply(totalSupply);
+    }
+
+    public void setBalance(Address user, BigInteger balance) {
+        userBalance.at(dbKey).set(user, balance);
+    }
+
+    public void setTotalSupply(BigInteger totalSupply) {
+        this.totalSupply.at(dbKey).set(totalSupply);
+    }
+
+    /**
+     * Marks the balance of a user and the total supply as unknown after an update that did not report them, so that
+     * they are read from the data source contract again. Values that were never stored are left untouched.
+     */
+    public void clearBalanceAndSupply(Address user) {
+        clearBalance(user);
+        clearTotalSupply();
+    }
+
+    public void clearBalance(Address user) {
+        DictDB<Address, BigInteger> balances = userBalance.at(dbKey);
+        if (balances.get(user) != null) {
+            balances.set(user, null);
+        }
+    }
+
+    public void clearTotalSupply() {
+        VarDB<BigInteger> supply = totalSupply.at(dbKey);
+        if (supply.get() != null) {
+            supply.set(null);
+        }
+    }
+
+    /**
+     * Returns the balance and total supply last reported by the data provider, falling back to the data source
+     * contract if either is not known.
+     */
+    public Map<String, BigInteger> getBalanceAndSupply(Address owner) {
+        BigInteger supply = totalSupply.at(dbKey).get();
+        BigInteger balance = userBalance.at(dbKey).get(owner);
+        if (supply == null || balance == null) {
+            return loadCurrentSupply(owner);
+        }
+
+        return Map.of("_totalSupply", supply,
+                      "_balance", balance
+        );
+    }
+
     public Map<String, BigInteger> loadCurrentSupply(Address owner) {
         try {
             DataSourceScoreInterface datasource = new DataSourceScoreInterface(getContractAddress());
@@ -141,15 +251,32 @@ public class DataSourceImpl {
             return BigInteger.ZERO;
         }
 
-        BigInteger currentUserWeight = getUserWeight(user);
+        BigInteger totalWeight = updateTotalWeight(currentTime, prevTotalSupply, readOnlyContext);
+        return updateUserWeight(user, prevBalance, totalWeight, readOnlyContext);
+    }
+
+    /**
+     * Advances the total weight of the data source to the current time, for batches that settle several users
+     * against the same total weight.
+     */
+    public BigInteger updateTotalWeight(BigInteger currentTime, BigInteger prevTotalSupply,
+                                        boolean readOnlyContext) {
         BigInteger lastUpdateTimestamp = getLastUpdateTimeUs();
 
         if (lastUpdateTimestamp.equals(BigInteger.ZERO)) {
             lastUpdateTimestamp = RewardsImpl.continuousRewardsDay.get().multiply(MICRO_SECONDS_IN_A_DAY);
         }
 
-        BigInteger totalWeight = updateTotalWeight(lastUpdateTimestamp, currentTime, prevTotalSupply, readOnlyContext);
+        return updateTotalWeight(lastUpdateTimestamp, currentTime, prevTotalSupply, readOnlyContext);
+    }
 
+    /**
+     * Moves the weight of a user up to the given total weight and returns the rewards accrued since the user was
+     * last updated.
+     */
+    public BigInteger updateUserWeight(Address user, BigInteger prevBalance, BigInteger totalWeight,
+                                       boolean readOnlyContext) {
+        BigInteger currentUserWeight = getUserWeight(user);
         if (currentUserWeight.equals(totalWeight)) {
             return BigInteger.ZERO;
         }
@@ -185,8 +312,8 @@ public class DataSourceImpl {
         return previousTotalWeight.add(weightDelta);
     }
 
-    private BigInteger updateTotalWeight(BigInteger lastUpdateTimestamp, BigInteger currentTime,
-                                         BigInteger totalSupply, boolean readOnlyContext) {
+    BigInteger updateTotalWeight(BigInteger lastUpdateTimestamp, BigInteger currentTime, BigInteger totalSupply,
+                                 boolean readOnlyContext) {
 
         BigInteger runningTotal = getTotalWeight();
 
@@ -196,7 +323,22 @@ public class DataSourceImpl {
             return runningTotal;
         }
 
-        // Emit rewards based on the time delta * reward rate
+        // Emit rewards based on the time delta * reward rate. Whole days in between are weighted from the
+        // distribution index when available, as the supply is constant over the entire period.
+        BigInteger firstDay = lastUpdateTimestamp.divide(MICRO_SECONDS_IN_A_DAY);
+        BigInteger lastDay = currentTime.divide(MICRO_SECONDS_IN_A_DAY);
+        BigInteger firstFullDay = firstDay.add(BigInteger.ONE);
+        if (firstFullDay.compareTo(lastDay) < 0 && !totalSupply.equals(BigInteger.ZERO)) {
+            BigInteger fullDaysWeight = getFullDaysWeight(firstFullDay, lastDay, totalSupply);
+            if (fullDaysWeight != null) {
+                BigInteger firstFullDayStartUs = firstFullDay.multiply(MICRO_SECONDS_IN_A_DAY);
+                runningTotal = computeTotalWeight(runningTotal, getTotalDist(firstDay), totalSupply,
+                        lastUpdateTimestamp, firstFullDayStartUs);
+                runningTotal = runningTotal.add(fullDaysWeight);
+                lastUpdateTimestamp = lastDay.multiply(MICRO_SECONDS_IN_A_DAY);
+            }
+        }
+
         BigInteger previousRewardsDay;
         BigInteger previousDayEndUs;
 
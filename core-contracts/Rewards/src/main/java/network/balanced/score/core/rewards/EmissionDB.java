@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.rewards;
+
+import score.Context;
+import score.VarDB;
+
+import java.math.BigInteger;
+
+import static network.balanced.score.lib.utils.Constants.EXA;
+import static network.balanced.score.lib.utils.Math.pow;
+
+/**
+ * Daily BALN emission. After day 60 the emission decays by 0.5% a day, rounding down at every step, until it reaches
+ * the minimum distribution. The decayed value of the last distributed day is stored so that the next day only takes
+ * a single step.
+ */
+public class EmissionDB {
+    private static final BigInteger BASE_DISTRIBUTION = pow(BigInteger.TEN, 23);
+    private static final BigInteger MIN_DISTRIBUTION = BigInteger.valueOf(1250).multiply(EXA);
+    private static final BigInteger DECAY = BigInteger.valueOf(995);
+    private static final BigInteger DECAY_BASE = BigInteger.valueOf(1000);
+    private static final int DECAY_START_DAY = 60;
+    private static final int PRECISION_OFFSET = 5;
+    private static final BigInteger PRECISION = pow(DECAY_BASE, PRECISION_OFFSET);
+    private static final BigInteger INITIAL_DECAY_VALUE = BASE_DISTRIBUTION.multiply(pow(DECAY, PRECISION_OFFSET));
+
+    // 0.995^1000 * 10^23 is below the minimum distribution, so later days don't have to be computed
+    private static final int MAX_DECAY_STEPS = 1000;
+    // Rounding down at every step loses less than 1 / (1 - 0.995) in total compared to a single rounding
+    private static final BigInteger MAX_ROUNDING_ERROR = BigInteger.valueOf(199);
+
+    private static final VarDB<BigInteger> lastDay = Context.newVarDB("emission_day", BigInteger.class);
+    private static final VarDB<BigInteger> lastDecayValue = Context.newVarDB("emission_decay_value",
+            BigInteger.class);
+
+    private EmissionDB() {}
+
+    /**
+     * Returns the emission of a day without modifying state.
+     */
+    public static BigInteger getDistribution(BigInteger day) {
+        if (day.compareTo(BigInteger.valueOf(DECAY_START_DAY + PRECISION_OFFSET + 1)) <= 0) {
+            return getInitialDistribution(day);
+        }
+
+        int steps = day.intValue() - DECAY_START_DAY - PRECISION_OFFSET;
+        if (steps >= MAX_DECAY_STEPS) {
+            return MIN_DISTRIBUTION;
+        }
+
+        BigInteger storedDay = lastDay.get();
+        if (day.equals(storedDay)) {
+            return toDistribution(lastDecayValue.get());
+        } else if (storedDay != null && day.equals(storedDay.add(BigInteger.ONE))) {
+            return toDistribution(decay(lastDecayValue.get()));
+        }
+
+        // A single rounding is an upper bound of the stepwise rounding and at most MAX_ROUNDING_ERROR above it, so
+        // the result is exact whenever both ends of that range give the same distribution
+        BigInteger upperBound = INITIAL_DECAY_VALUE.multiply(pow(DECAY, steps)).divide(pow(DECAY_BASE, steps));
+        BigInteger distribution = toDistribution(upperBound);
+        if (distribution.equals(toDistribution(upperBound.subtract(MAX_ROUNDING_ERROR)))) {
+            return distribution;
+        }
+
+        return toDistribution(computeDecayValue(steps));
+    }
+
+    /**
+     * Returns the emission of the day being distributed and stores its decayed value for the following day.
+     */
+    public static BigInteger nextDistribution(BigInteger day) {
+        if (day.compareTo(BigInteger.valueOf(DECAY_START_DAY + PRECISION_OFFSET + 1)) <= 0) {
+            return getInitialDistribution(day);
+        }
+
+        int steps = day.intValue() - DECAY_START_DAY - PRECISION_OFFSET;
+        if (steps >= MAX_DECAY_STEPS) {
+            return MIN_DISTRIBUTION;
+        }
+
+        BigInteger storedDay = lastDay.get();
+        BigInteger decayValue;
+        if (day.equals(storedDay)) {
+            return toDistribution(lastDecayValue.get());
+        } else if (storedDay != null && day.equals(storedDay.add(BigInteger.ONE))) {
+            decayValue = decay(lastDecayValue.get());
+        } else {
+            decayValue = computeDecayValue(steps);
+        }
+
+        lastDay.set(day);
+        lastDecayValue.set(decayValue);
+        return toDistribution(decayValue);
+    }
+
+    private static BigInteger getInitialDistribution(BigInteger day) {
+        if (day.compareTo(BigInteger.valueOf(DECAY_START_DAY)) <= 0) {
+            return BASE_DISTRIBUTION;
+        }
+
+        int index = day.intValue() - DECAY_START_DAY;
+        BigInteger distribution = pow(DECAY, index).multiply(BASE_DISTRIBUTION).divide(pow(DECAY_BASE, index));
+        return MIN_DISTRIBUTION.max(distribution);
+    }
+
+    private static BigInteger computeDecayValue(int steps) {
+        BigInteger decayValue = INITIAL_DECAY_VALUE;
+        for (int i = 0; i < steps; i++) {
+            decayValue = decay(decayValue);
+        }
+
+        return decayValue;
+    }
+
+    private static BigInteger decay(BigInteger decayValue) {
+        return decayValue.multiply(DECAY).divide(DECAY_BASE);
+    }
+
+    private static BigInteger toDistribution(BigInteger decayValue) {
+        return MIN_DISTRIBUTION.max(decayValue.divide(PRECISION));
+    }
+}
@@ -21,6 +21,7 @@ import network.balanced.score.lib.interfaces.DataSourceScoreInterface;
 import network.balanced.score.lib.interfaces.Rewards;
 import network.balanced.score.lib.interfaces.tokens.IRC2MintableScoreInterface;
 import network.balanced.score.lib.structs.DistributionPercentage;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import network.balanced.score.lib.structs.RewardsDataEntry;
 import network.balanced.score.lib.utils.SetDB;
 import score.*;
@@ -41,7 +42,6 @@ import static network.balanced.score.lib.utils.Check.*;
 import static network.balanced.score.lib.utils.Constants.EXA;
 import static network.balanced.score.lib.utils.Constants.MICRO_SECONDS_IN_A_DAY;
 import static network.balanced.score.lib.utils.DBHelpers.contains;
-import static network.balanced.score.lib.utils.Math.pow;
 
 /***
  * There can be unclaimed rewards if there are no participants in the data source. This can happen in testnet and
@@ -70,6 +70,7 @@ public class RewardsImpl implements Rewards {
     private static final String CONTINUOUS_REWARDS_DAY = "continuous_rewards_day";
     private static final String DATA_PROVIDERS = "data_providers";
     private static final String NON_CONTINUOUS_REWARDS_DAY_COUNT = "non_continuous_rewards_day_count";
+    private static final String CURRENT_DISTRIBUTION = "current_distribution";
 
     private static final VarDB<Address> governance = Context.newVarDB(GOVERNANCE, Address.class);
     private static final VarDB<Address> admin = Context.newVarDB(ADMIN, Address.class);
@@ -96,6 +97,8 @@ public class RewardsImpl implements Rewards {
     private final static SetDB<Address> dataProviders = new SetDB<>(DATA_PROVIDERS, Address.class, null);
     private static final VarDB<BigInteger> nonContinuousRewardsDayCount =
             Context.newVarDB(NON_CONTINUOUS_REWARDS_DAY_COUNT, BigInteger.class);
+    // Result of recipientAt for all days since the last distribution update, packed as "day|name|amount|..."
+    private static final VarDB<String> currentDistribution = Context.newVarDB(CURRENT_DISTRIBUTION, String.class);
 
     private static final Map<String, VarDB<Address>> platformRecipients = Map.of(WORKER_TOKENS, bwtAddress,
             RewardsConstants.RESERVE_FUND, reserveFund,
@@ -117,6 +120,9 @@ public class RewardsImpl implements Rewards {
             completeRecipient.add(WORKER_TOKENS);
             completeRecipient.add(RewardsConstants.RESERVE_FUND);
             completeRecipient.add(DAOFUND);
+        } else {
+            // On "update" code
+            DataSourceDB.indexNames();
         }
     }
 
@@ -136,7 +142,7 @@ public class RewardsImpl implements Rewards {
         }
 
         Context.require(_day.compareTo(BigInteger.ZERO) > 0, TAG + ": " + "Invalid day.");
-        return dailyDistribution(_day);
+        return EmissionDB.getDistribution(_day);
     }
 
     @External(readonly = true)
@@ -153,13 +159,11 @@ public class RewardsImpl implements Rewards {
     public BigInteger getBalnHolding(Address _holder) {
         BigInteger accruedRewards = balnHoldings.getOrDefault(_holder.toString(), BigInteger.ZERO);
 
-        int dataSourcesCount = DataSourceDB.size();
         // TODO If we remove data source, user can't claim rewards for that data source
-        for (int i = 0; i < dataSourcesCount; i++) {
-            String name = DataSourceDB.names.get(i);
+        for (String name : getUserSources(_holder)) {
             DataSourceImpl dataSource = DataSourceDB.get(name);
 
-            Map<String, BigInteger> data = dataSource.loadCurrentSupply(_holder);
+            Map<String, BigInteger> data = dataSource.getBalanceAndSupply(_holder);
 
             BigInteger currentTime = getTime();
             BigInteger sourceRewards = dataSource.updateSingleUserData(currentTime, data.get(TOTAL_SUPPLY), _holder
@@ -220,6 +224,7 @@ public class RewardsImpl implements Rewards {
         }
 
         Context.require(totalPercentage.equals(HUNDRED_PERCENTAGE), TAG + ": Total percentage does not sum up to 100.");
+        storeCurrentDistribution(day);
     }
 
     @External(readonly = true)
@@ -256,6 +261,7 @@ public class RewardsImpl implements Rewards {
 
         recipients.add(_name);
         completeRecipient.add(_name);
+        currentDistribution.set(null);
         DataSourceDB.newSource(_name, _address);
     }
 
@@ -358,7 +364,7 @@ public class RewardsImpl implements Rewards {
     }
 
     private boolean mintAndAllocateBalnReward(BigInteger platformDay) {
-        BigInteger distribution = dailyDistribution(platformDay);
+        BigInteger distribution = EmissionDB.nextDistribution(platformDay);
 
         IRC2MintableScoreInterface baln = new IRC2MintableScoreInterface(balnAddress.get());
         baln.mint(distribution, new byte[0]);
@@ -371,7 +377,7 @@ public class RewardsImpl implements Rewards {
             BigInteger split = recipientDistribution.get(name);
             BigInteger share = split.multiply(remaining).divide(shares);
 
-            if (contains(DataSourceDB.names, name)) {
+            if (DataSourceDB.contains(name)) {
                 DataSourceDB.get(name).setTotalDist(platformDay, share);
             } else {
                 baln.transfer(platformRecipients.get(name).get(), share, new byte[0]);
@@ -385,15 +391,39 @@ public class RewardsImpl implements Rewards {
             }
         }
 
+        updateDistIndexes(platformDay);
+
         RewardsImpl.platformDay.set(platformDay.add(BigInteger.ONE));
         return false;
     }
 
+    private void updateDistIndexes(BigInteger platformDay) {
+        // Distributions up to the continuous rewards day can still be paid out by the non-continuous distribution
+        BigInteger continuousRewardsDay = getContinuousRewardsDay();
+        if (continuousRewardsDay == null || platformDay.compareTo(continuousRewardsDay) <= 0) {
+            return;
+        }
+
+        int dataSourcesCount = DataSourceDB.size();
+        for (int i = 0; i < dataSourcesCount; i++) {
+            DataSourceDB.get(DataSourceDB.names.get(i)).updateDistIndex(platformDay);
+        }
+    }
+
     @External(readonly = true)
     public Map<String, BigInteger> recipientAt(BigInteger _day) {
         Context.require(_day.compareTo(BigInteger.ZERO) >= 0, TAG + ": day:" + _day + " must be equal to or greater " +
                 "then Zero");
 
+        Map<String, BigInteger> distributions = getCurrentDistribution(_day);
+        if (distributions != null) {
+            return distributions;
+        }
+
+        return searchRecipientSnapshots(_day);
+    }
+
+    private Map<String, BigInteger> searchRecipientSnapshots(BigInteger _day) {
         Map<String, BigInteger> distributions = new HashMap<>();
 
         int completeRecipientCount = completeRecipient.size();
@@ -448,17 +478,24 @@ public class RewardsImpl implements Rewards {
         BigInteger currentTime;
         distribute();
 
-        int dataSourcesCount = DataSourceDB.size();
-        for (int i = 0; i < dataSourcesCount; i++) {
-            String name = DataSourceDB.names.get(i);
+        boolean indexed = UserSourcesDB.isIndexed(address);
+        List<String> activeSources = new ArrayList<>();
+        for (String name : getUserSources(address)) {
             DataSourceImpl dataSource = DataSourceDB.get(name);
-            Map<String, BigInteger> data = dataSource.loadCurrentSupply(address);
+            Map<String, BigInteger> data = dataSource.getBalanceAndSupply(address);
 
             BigInteger totalSupply = data.get(TOTAL_SUPPLY);
             BigInteger balance = data.get(BALANCE);
 
             currentTime = getTime();
             updateUserAccruedRewards(name, totalSupply, currentTime, dataSource, address, balance);
+            if (balance.signum() > 0) {
+                activeSources.add(name);
+            }
+        }
+
+        if (!indexed) {
+            UserSourcesDB.set(address, activeSources);
         }
 
         BigInteger userClaimableRewards = balnHoldings.getOrDefault(address.toString(), BigInteger.ZERO);
@@ -524,6 +561,26 @@ public class RewardsImpl implements Rewards {
         distribute();
         DataSourceImpl dataSource = DataSourceDB.get(_name);
         updateUserAccruedRewards(_name, _totalSupply, currentTime, dataSource, _user, _balance);
+        dataSource.clearBalanceAndSupply(_user);
+        UserSourcesDB.add(_user, _name);
+    }
+
+    /**
+     * Same as updateRewardsData, but also reports the balance of the user and the total supply after the update, so
+     * that rewards of the data source can be computed without querying the data source contract.
+     */
+    @External
+    public void updateRewardsDataWithBalance(String _name, BigInteger _totalSupply, Address _user, BigInteger _balance,
+                                             BigInteger _newTotalSupply, BigInteger _newBalance) {
+        Context.require(dataProviders.contains(Context.getCaller()), TAG + ": Only data sources are allowed to update" +
+                " rewards data");
+
+        BigInteger currentTime = getTime();
+        distribute();
+        DataSourceImpl dataSource = DataSourceDB.get(_name);
+        updateUserAccruedRewards(_name, _totalSupply, currentTime, dataSource, _user, _balance);
+        dataSource.setBalanceAndSupply(_user, _newBalance, _newTotalSupply);
+        UserSourcesDB.add(_user, _name);
     }
 
     @External
@@ -531,22 +588,120 @@ public class RewardsImpl implements Rewards {
         Context.require(dataProviders.contains(Context.getCaller()), TAG + ": Only data sources are allowed to update" +
                 " rewards data");
 
+        int entriesCount = _data.length;
+        Address[] users = new Address[entriesCount];
+        BigInteger[] balances = new BigInteger[entriesCount];
+        for (int i = 0; i < entriesCount; i++) {
+            users[i] = _data[i]._user;
+            balances[i] = _data[i]._balance;
+        }
+
+        updateBatch(_name, _totalSupply, users, balances, null, null);
+    }
+
+    /**
+     * Same as updateBatchRewardsData, but also reports the balances of the users and the total supply after the
+     * batch, so that rewards of the data source can be computed without querying the data source contract.
+     */
+    @External
+    public void updateBatchRewardsDataWithBalance(String _name, BigInteger _totalSupply, BigInteger _newTotalSupply,
+                                                  RewardsBalanceEntry[] _data) {
+        Context.require(dataProviders.contains(Context.getCaller()), TAG + ": Only data sources are allowed to update" +
+                " rewards data");
+
+        int entriesCount = _data.length;
+        Address[] users = new Address[entriesCount];
+        BigInteger[] balances = new BigInteger[entriesCount];
+        BigInteger[] newBalances = new BigInteger[entriesCount];
+        for (int i = 0; i < entriesCount; i++) {
+            users[i] = _data[i]._user;
+            balances[i] = _data[i]._balance;
+            newBalances[i] = _data[i]._newBalance;
+        }
+
+        updateBatch(_name, _totalSupply, users, balances, newBalances, _newTotalSupply);
+    }
+
+    /**
+     * Settles a batch of users of a data source against a single total weight update. Without new balances the
+     * stored balances of the users and the total supply are marked as unknown.
+     */
+    private void updateBatch(String _name, BigInteger _totalSupply, Address[] users, BigInteger[] balances,
+                             BigInteger[] newBalances, BigInteger newTotalSupply) {
         BigInteger currentTime = getTime();
         distribute();
 
         DataSourceImpl dataSource = DataSourceDB.get(_name);
-        for (RewardsDataEntry entry : _data) {
-            Address user = entry._user;
-            BigInteger previousBalance = entry._balance;
-            updateUserAccruedRewards(_name, _totalSupply, currentTime, dataSource, user, previousBalance);
+        boolean continuousRewardsIsActive = continuousRewardsActive();
+        BigInteger totalWeight = BigInteger.ZERO;
+        if (continuousRewardsIsActive) {
+            totalWeight = dataSource.updateTotalWeight(currentTime, _totalSupply, false);
+        }
+
+        // Only the first entry of a user accrues rewards, later entries find the user already at the total weight
+        Map<Address, Boolean> processedUsers = new HashMap<>();
+        for (int i = 0; i < users.length; i++) {
+            Address user = users[i];
+            if (processedUsers.containsKey(user)) {
+                if (newBalances != null) {
+                    dataSource.setBalance(user, newBalances[i]);
+                }
+                continue;
+            }
+            processedUsers.put(user, true);
+
+            if (continuousRewardsIsActive) {
+                BigInteger accruedRewards = dataSource.updateUserWeight(user, balances[i], totalWeight, false);
+                addAccruedRewards(_name, user, accruedRewards);
+            }
+
+            if (newBalances != null) {
+                dataSource.setBalance(user, newBalances[i]);
+            } else {
+                dataSource.clearBalance(user);
+            }
+            UserSourcesDB.add(user, _name);
+        }
+
+        if (newBalances != null) {
+            dataSource.setTotalSupply(newTotalSupply);
+        } else {
+            dataSource.clearTotalSupply();
+        }
+    }
+
+    /**
+     * Returns the data sources a user has to be settled against. Users that have not been indexed yet are resolved
+     * against all data sources.
+     */
+    private List<String> getUserSources(Address user) {
+        List<String> userSources = UserSourcesDB.get(user);
+        if (userSources == null) {
+            userSources = new ArrayList<>();
+            int dataSourcesCount = DataSourceDB.size();
+            for (int i = 0; i < dataSourcesCount; i++) {
+                userSources.add(DataSourceDB.names.get(i));
+            }
+            return userSources;
+        }
+
+        List<String> activeSources = new ArrayList<>();
+        for (String name : userSources) {
+            if (DataSourceDB.contains(name)) {
+                activeSources.add(name);
+            }
         }
+        return activeSources;
     }
 
     private void updateUserAccruedRewards(String _name, BigInteger _totalSupply, BigInteger currentTime,
                                           DataSourceImpl dataSource, Address user, BigInteger previousBalance) {
         BigInteger accruedRewards = dataSource.updateSingleUserData(currentTime, _totalSupply, user,
                 previousBalance, false);
+        addAccruedRewards(_name, user, accruedRewards);
+    }
 
+    private void addAccruedRewards(String _name, Address user, BigInteger accruedRewards) {
         if (accruedRewards.compareTo(BigInteger.ZERO) > 0) {
             BigInteger newHoldings =
                     balnHoldings.getOrDefault(user.toString(), BigInteger.ZERO).add(accruedRewards);
@@ -686,39 +841,46 @@ public class RewardsImpl implements Rewards {
         return Context.call(targetAddress, method, params);
     }
 
-    private BigInteger dailyDistribution(BigInteger day) {
-        BigInteger baseDistribution = pow(BigInteger.TEN, 23);
-        int offset = 5;
-        if (day.compareTo(BigInteger.valueOf(60)) <= 0) {
-            return baseDistribution;
-        } else if (day.compareTo(BigInteger.valueOf(66)) <= 0) { 
-            BigInteger index = day.subtract(BigInteger.valueOf(60));
-            BigInteger decay = pow(BigInteger.valueOf(995), index.intValue());
-            BigInteger decayOffset = pow(BigInteger.valueOf(1000), index.intValue());
-            BigInteger minDistribution = BigInteger.valueOf(1250).multiply(EXA);
-            BigInteger distribution = decay.multiply(baseDistribution).divide(decayOffset);
-            return minDistribution.max(distribution);
-
-        } else {
-            int index = day.subtract(BigInteger.valueOf(60)).intValue();
-            BigInteger distribution = baseDistribution;
-            
-            for (int i = 0; i < offset; i++) {
-                distribution = distribution.multiply(BigInteger.valueOf(995));
+    private void storeCurrentDistribution(BigInteger day) {
+        StringBuilder record = new StringBuilder(day.toString()).append("|");
+        Map<String, BigInteger> distributions = searchRecipientSnapshots(day);
+        int completeRecipientCount = completeRecipient.size();
+        for (int i = 0; i < completeRecipientCount; i++) {
+            String recipient = completeRecipient.get(i);
+            BigInteger amount = distributions.get(recipient);
+            if (amount != null) {
+                record.append(recipient).append("|").append(amount).append("|");
             }
+        }
 
-            int exponent = index - offset;
-            for (int i = 0; i < exponent; i++) {
-                distribution = distribution.multiply(BigInteger.valueOf(995)).divide(BigInteger.valueOf(1000));
-            }
+        currentDistribution.set(record.toString());
+    }
 
-            for (int i = 0; i < offset; i++) {
-                distribution = distribution.divide(BigInteger.valueOf(1000));
-            }
+    /**
+     * @return The distribution stored by the last distribution update, or null if the day is before that update
+     */
+    private Map<String, BigInteger> getCurrentDistribution(BigInteger day) {
+        String record = currentDistribution.get();
+        if (record == null) {
+            return null;
+        }
 
-            BigInteger minDistribution = BigInteger.valueOf(1250).multiply(EXA);
-            return minDistribution.max(distribution);
+        int end = record.indexOf("|");
+        if (new BigInteger(record.substring(0, end)).compareTo(day) > 0) {
+            return null;
         }
+
+        Map<String, BigInteger> distributions = new HashMap<>();
+        int start = end + 1;
+        while (start < record.length()) {
+            int nameEnd = record.indexOf("|", start);
+            int amountEnd = record.indexOf("|", nameEnd + 1);
+            distributions.put(record.substring(start, nameEnd), new BigInteger(record.substring(nameEnd + 1,
+                    amountEnd)));
+            start = amountEnd + 1;
+        }
+
+        return distributions;
     }
 
     private void updateRecipientSnapshot(String recipient, BigInteger percentage) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package network.balanced.score.core.rewards;
+
+import score.Address;
+import score.Context;
+import score.DictDB;
+import scorex.util.ArrayList;
+
+import java.util.List;
+
+/**
+ * Index of the data sources a user holds or held a balance in, stored as a single packed string per user of the form
+ * "|name1|name2|". A user without a record has not been indexed yet and has to be resolved against every data source
+ * once, after which data providers keep the record up to date.
+ */
+public class UserSourcesDB {
+    private static final String SEPARATOR = "|";
+    private static final DictDB<Address, String> userSources = Context.newDictDB("user_sources", String.class);
+
+    private UserSourcesDB() {}
+
+    public static boolean isIndexed(Address user) {
+        return userSources.get(user) != null;
+    }
+
+    /**
+     * @return The data sources of the user, or null if the user has not been indexed yet
+     */
+    public static List<String> get(Address user) {
+        String record = userSources.get(user);
+        if (record == null) {
+            return null;
+        }
+
+        List<String> names = new ArrayList<>();
+        int start = 1;
+        int end = record.indexOf(SEPARATOR, start);
+        while (end != -1) {
+            names.add(record.substring(start, end));
+            start = end + 1;
+            end = record.indexOf(SEPARATOR, start);
+        }
+
+        return names;
+    }
+
+    public static void set(Address user, List<String> names) {
+        StringBuilder record = new StringBuilder(SEPARATOR);
+        for (String name : names) {
+            record.append(name).append(SEPARATOR);
+        }
+
+        userSources.set(user, record.toString());
+    }
+
+    /**
+     * Adds a data source to an indexed user. Users that are not indexed yet are left alone, as their first claim
+     * resolves all data sources anyway.
+     */
+    public static void add(Address user, String name) {
+        String record = userSources.get(user);
+        if (record == null || record.contains(SEPARATOR + name + SEPARATOR)) {
+            return;
+        }
+
+        userSources.set(user, record + name + SEPARATOR);
+    }
+}
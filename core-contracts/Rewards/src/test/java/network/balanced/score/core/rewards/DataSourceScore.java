@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.rewards;
+
+import score.annotation.External;
+
+import java.math.BigInteger;
+
+/**
+ * Contract holding two data sources with the same distributions, of which only the first keeps the distribution
+ * index, so that the weight read from the index can be compared with the weight of the day by day loop.
+ */
+public class DataSourceScore {
+    private static final String INDEXED = "indexed";
+    private static final String PLAIN = "plain";
+
+    @External
+    public void setTotalDist(BigInteger day, BigInteger value) {
+        new DataSourceImpl(PLAIN).setTotalDist(day, value);
+        DataSourceImpl indexed = new DataSourceImpl(INDEXED);
+        indexed.setTotalDist(day, value);
+        indexed.updateDistIndex(day);
+    }
+
+    @External
+    public void overwriteIndexedDist(BigInteger day, BigInteger value) {
+        new DataSourceImpl(INDEXED).setTotalDist(day, value);
+    }
+
+    @External(readonly = true)
+    public BigInteger getIndexedWeight(BigInteger lastUpdateUs, BigInteger currentUs, BigInteger totalSupply) {
+        return new DataSourceImpl(INDEXED).updateTotalWeight(lastUpdateUs, currentUs, totalSupply, true);
+    }
+
+    @External(readonly = true)
+    public BigInteger getPlainWeight(BigInteger lastUpdateUs, BigInteger currentUs, BigInteger totalSupply) {
+        return new DataSourceImpl(PLAIN).updateTotalWeight(lastUpdateUs, currentUs, totalSupply, true);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.core.rewards;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static network.balanced.score.lib.utils.Constants.EXA;
+import static network.balanced.score.lib.utils.Constants.MICRO_SECONDS_IN_A_DAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataSourceTest extends TestBase {
+    private static final ServiceManager sm = getServiceManager();
+    private static final Account owner = sm.createAccount();
+    private static final int FIRST_INDEXED_DAY = 10;
+    private static final int LAST_INDEXED_DAY = 29;
+    private static final BigInteger TOTAL_SUPPLY = BigInteger.valueOf(3).multiply(EXA).add(BigInteger.valueOf(7));
+
+    private Score dataSources;
+
+    @BeforeEach
+    void setup() throws Exception {
+        dataSources = sm.deploy(owner, DataSourceScore.class);
+
+        // Decaying distributions first, then two runs of equal distributions split by a single different day
+        BigInteger constant = BigInteger.valueOf(777).multiply(EXA).add(BigInteger.valueOf(13));
+        for (int day = FIRST_INDEXED_DAY; day <= LAST_INDEXED_DAY; day++) {
+            BigInteger distribution;
+            if (day < 15) {
+                distribution = BigInteger.valueOf(1000).multiply(EXA).subtract(BigInteger.valueOf(7L * day + 3));
+            } else if (day == 22) {
+                distribution = constant.add(BigInteger.ONE);
+            } else {
+                distribution = constant;
+            }
+            dataSources.invoke(owner, "setTotalDist", BigInteger.valueOf(day), distribution);
+        }
+    }
+
+    private BigInteger time(int day, long offsetUs) {
+        return BigInteger.valueOf(day).multiply(MICRO_SECONDS_IN_A_DAY).add(BigInteger.valueOf(offsetUs));
+    }
+
+    private void verifySameWeight(BigInteger lastUpdateUs, BigInteger currentUs) {
+        BigInteger plainWeight = (BigInteger) dataSources.call("getPlainWeight", lastUpdateUs, currentUs, TOTAL_SUPPLY);
+        BigInteger indexedWeight = (BigInteger) dataSources.call("getIndexedWeight", lastUpdateUs, currentUs,
+                TOTAL_SUPPLY);
+        assertEquals(plainWeight, indexedWeight);
+    }
+
+    @Test
+    void updateTotalWeight_indexMatchesDayByDay() {
+        verifySameWeight(time(11, 12345), time(28, 999));
+        verifySameWeight(time(12, 0), time(20, 0));
+        verifySameWeight(time(15, 1), time(22, 1));
+        verifySameWeight(time(16, 500), time(18, 0));
+    }
+
+    @Test
+    void updateTotalWeight_readsRunsFromIndex() {
+        // Arrange
+        BigInteger lastUpdateUs = time(11, 12345);
+        BigInteger currentUs = time(28, 999);
+        BigInteger expectedWeight = (BigInteger) dataSources.call("getPlainWeight", lastUpdateUs, currentUs,
+                TOTAL_SUPPLY);
+
+        // Act
+        dataSources.invoke(owner, "overwriteIndexedDist", BigInteger.valueOf(17), EXA);
+
+        // Assert
+        BigInteger indexedWeight = (BigInteger) dataSources.call("getIndexedWeight", lastUpdateUs, currentUs,
+                TOTAL_SUPPLY);
+        assertEquals(expectedWeight, indexedWeight);
+    }
+
+    @Test
+    void updateTotalWeight_outsideIndex() {
+        verifySameWeight(time(5, 100), time(20, 100));
+        verifySameWeight(time(20, 100), time(35, 100));
+        verifySameWeight(time(14, 100), time(16, 100));
+    }
+}
@@ -97,6 +97,28 @@ class RewardsTest extends RewardsTestBase {
         assertTrue(names.contains("Loans"));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void removeDataSource_reAdd() {
+        // Arrange
+        icxPoolDist.dist_percent = BigInteger.ZERO; //0%
+        loansDist.dist_percent = loansDist.dist_percent.multiply(BigInteger.TWO); //40%
+
+        DistributionPercentage[] distributionPercentages = new DistributionPercentage[]{loansDist, icxPoolDist, bwtDist, reserveDist, daoDist};
+        rewardsScore.invoke(governance, "updateBalTokenDistPercentage", (Object) distributionPercentages);
+        rewardsScore.invoke(admin, "distribute");
+
+        // Act
+        rewardsScore.invoke(governance, "removeDataSource", "sICX/ICX");
+        rewardsScore.invoke(governance, "addNewDataSource", "sICX/ICX", dex.getAddress());
+
+        // Assert
+        List<String> names = (List<String>) rewardsScore.call("getDataSourceNames");
+        assertEquals(List.of("Loans", "sICX/ICX"), names);
+        assertEquals(dex.getAddress(), ((Map<String, Object>) rewardsScore.call("getSourceData", "sICX/ICX")).get(
+                "contract_address"));
+    }
+
     @Test
     void removeDataSource_nonEmptyDistribution() {
         // Arrange 
@@ -228,6 +250,36 @@ class RewardsTest extends RewardsTestBase {
          assertEquals(minEmission, rewardsScore.call("getEmission", BigInteger.valueOf(day)));
     }
 
+    @Test
+    void getEmission_matchesStepwiseDecay() {
+        // Act & Assert
+        BigInteger currentDay = (BigInteger) rewardsScore.call("getDay");
+        assertEquals(stepwiseEmission(currentDay.intValue()), rewardsScore.call("getEmission", BigInteger.ZERO));
+        for (int day = 1; day <= 5000; day++) {
+            assertEquals(stepwiseEmission(day), rewardsScore.call("getEmission", BigInteger.valueOf(day)));
+        }
+    }
+
+    private BigInteger stepwiseEmission(int day) {
+        BigInteger baseDistribution = BigInteger.TEN.pow(23);
+        BigInteger minDistribution = BigInteger.valueOf(1250).multiply(ICX);
+        BigInteger decay = BigInteger.valueOf(995);
+        BigInteger decayBase = BigInteger.valueOf(1000);
+        if (day <= 60) {
+            return baseDistribution;
+        } else if (day <= 66) {
+            int index = day - 60;
+            return minDistribution.max(decay.pow(index).multiply(baseDistribution).divide(decayBase.pow(index)));
+        }
+
+        BigInteger distribution = baseDistribution.multiply(decay.pow(5));
+        for (int i = 0; i < day - 65; i++) {
+            distribution = distribution.multiply(decay).divide(decayBase);
+        }
+
+        return minDistribution.max(distribution.divide(decayBase.pow(5)));
+    }
+
     @Test
     void tokenFallback_baln() {
         // Arrange
@@ -452,6 +504,37 @@ class RewardsTest extends RewardsTestBase {
         assertEquals(testDist.dist_percent, distributionsToday.get("test"));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void recipientAt_currentDistribution() {
+        // Arrange
+        BigInteger originalLoansDist = loansDist.dist_percent;
+        BigInteger originalSwapDist = icxPoolDist.dist_percent;
+        BigInteger previousDay = (BigInteger) rewardsScore.call("getDay");
+        snapshotDistributionPercentage();
+
+        loansDist.dist_percent = originalLoansDist.add(originalSwapDist.divide(BigInteger.TWO));
+        icxPoolDist.dist_percent = originalSwapDist.divide(BigInteger.TWO);
+        BigInteger day = (BigInteger) rewardsScore.call("getDay");
+        snapshotDistributionPercentage();
+
+        // Act
+        Map<String, BigInteger> distributionsBefore = (Map<String, BigInteger>) rewardsScore.call("recipientAt",
+                previousDay);
+        Map<String, BigInteger> distributionsToday = (Map<String, BigInteger>) rewardsScore.call("recipientAt", day);
+        Map<String, BigInteger> distributionsLater = (Map<String, BigInteger>) rewardsScore.call("recipientAt",
+                day.add(BigInteger.TEN));
+
+        // Assert
+        assertEquals(originalLoansDist, distributionsBefore.get("Loans"));
+        assertEquals(originalSwapDist, distributionsBefore.get("sICX/ICX"));
+        assertEquals(loansDist.dist_percent, distributionsToday.get("Loans"));
+        assertEquals(icxPoolDist.dist_percent, distributionsToday.get("sICX/ICX"));
+        assertEquals(bwtDist.dist_percent, distributionsToday.get("Worker Tokens"));
+        assertEquals(5, distributionsToday.size());
+        assertEquals(distributionsToday, distributionsLater);
+    }
+
     @Test
     void recipientAt_dayLessThanZero() {
         // Arrange 
@@ -17,6 +17,7 @@
 package network.balanced.score.core.rewards;
 
 import com.iconloop.score.test.Account;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import network.balanced.score.lib.structs.RewardsDataEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,6 +28,7 @@ import java.util.Map;
 
 import static network.balanced.score.lib.utils.Constants.MICRO_SECONDS_IN_A_DAY;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -171,6 +173,59 @@ class RewardsTestContinuousRewards extends RewardsTestBase {
         verifyBalnReward(account2.getAddress(), user2ExpectedRewards);
     }
 
+    @Test
+    void claimRewards_onlyUserSources() {
+        // Arrange
+        Account account = sm.createAccount();
+        BigInteger loansBalance = BigInteger.ONE.multiply(EXA);
+        BigInteger loansTotalSupply = BigInteger.TEN.multiply(EXA);
+
+        rewardsScore.invoke(loans.account, "updateRewardsData", "Loans", BigInteger.ZERO, account.getAddress(), BigInteger.ZERO);
+        mockBalanceAndSupply(loans, "Loans", account.getAddress(), loansBalance, loansTotalSupply);
+        sm.getBlock().increase(DAY);
+
+        // Act
+        rewardsScore.invoke(account, "claimRewards");
+        sm.getBlock().increase(DAY);
+        rewardsScore.invoke(account, "claimRewards");
+        rewardsScore.call("getBalnHolding", account.getAddress());
+
+        // Assert
+        verify(dex.mock, times(1)).getBalanceAndSupply("sICX/ICX", account.getAddress());
+        verify(loans.mock, times(3)).getBalanceAndSupply("Loans", account.getAddress());
+    }
+
+    @Test
+    void claimRewards_multipleDays() {
+        // Arrange
+        Account account = sm.createAccount();
+        BigInteger balance = BigInteger.ONE.multiply(EXA);
+        BigInteger totalSupply = BigInteger.TEN.multiply(EXA);
+
+        rewardsScore.invoke(loans.account, "updateRewardsData", "Loans", totalSupply, account.getAddress(), BigInteger.ZERO);
+        BigInteger startTimeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+        mockBalanceAndSupply(loans, "Loans", account.getAddress(), balance, totalSupply);
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            sm.getBlock().increase(DAY);
+            rewardsScore.invoke(admin, "distribute");
+            rewardsScore.invoke(admin, "distribute");
+        }
+
+        rewardsScore.invoke(account, "claimRewards");
+        BigInteger timeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+
+        // Assert
+        BigInteger emission = (BigInteger) rewardsScore.call("getEmission", BigInteger.valueOf(-1));
+        BigInteger loansDistribution = loansDist.dist_percent.multiply(emission).divide(EXA);
+        BigInteger userDistribution = loansDistribution.multiply(balance).divide(totalSupply);
+        BigInteger diffInUS = timeInUS.subtract(startTimeInUS);
+        BigInteger expectedRewards = userDistribution.multiply(diffInUS).divide(MICRO_SECONDS_IN_A_DAY);
+
+        verifyBalnReward(account.getAddress(), expectedRewards);
+    }
+
     @Test
     void getBalnHolding() {
         // Arrange
@@ -206,6 +261,34 @@ class RewardsTestContinuousRewards extends RewardsTestBase {
         assertEquals(expectedRewards.divide(BigInteger.TEN), rewards.divide(BigInteger.TEN));
     }
 
+    @Test
+    void getBalnHolding_reportedBalance() {
+        // Arrange
+        Account account = sm.createAccount();
+        String name = "sICX/ICX";
+        BigInteger balance = BigInteger.ONE.multiply(EXA);
+        BigInteger totalSupply = BigInteger.TEN.multiply(EXA);
+
+        // Act
+        rewardsScore.invoke(dex.account, "updateRewardsDataWithBalance", name, totalSupply.subtract(balance),
+                account.getAddress(), BigInteger.ZERO, totalSupply, balance);
+        BigInteger startTimeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+        sm.getBlock().increase(DAY);
+
+        BigInteger rewards = (BigInteger) rewardsScore.call("getBalnHolding", account.getAddress());
+        BigInteger timeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+
+        // Assert
+        BigInteger emission = (BigInteger) rewardsScore.call("getEmission", BigInteger.valueOf(-1));
+        BigInteger swapDistribution = icxPoolDist.dist_percent.multiply(emission).divide(EXA);
+        BigInteger userDistribution = swapDistribution.multiply(balance).divide(totalSupply);
+        BigInteger diffInUS = timeInUS.subtract(startTimeInUS);
+        BigInteger expectedRewards = userDistribution.multiply(diffInUS).divide(MICRO_SECONDS_IN_A_DAY);
+
+        assertEquals(expectedRewards.divide(BigInteger.TEN), rewards.divide(BigInteger.TEN));
+        verify(dex.mock, never()).getBalanceAndSupply(name, account.getAddress());
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     void getBalnHoldings() {
@@ -297,6 +380,91 @@ class RewardsTestContinuousRewards extends RewardsTestBase {
         assertEquals(user1ExpectedRewards.divide(BigInteger.TEN), user1Rewards);
         assertEquals(user2ExpectedRewards.divide(BigInteger.TEN), user2Rewards);
     }
-}
 
+    @SuppressWarnings("unchecked")
+    @Test
+    void getBalnHoldings_batchDuplicateUsers() {
+        // Arrange
+        Account account1 = sm.createAccount();
+        Account account2 = sm.createAccount();
+
+        String name = "Loans";
+        BigInteger totalSupply = BigInteger.TEN.multiply(EXA);
+        BigInteger user1Balance = BigInteger.TWO.multiply(EXA);
+
+        RewardsDataEntry user1Entry = new RewardsDataEntry();
+        user1Entry._balance = BigInteger.ZERO;
+        user1Entry._user = account1.getAddress();
+        Object initialBatch = new RewardsDataEntry[] {user1Entry, user1Entry};
+
+        rewardsScore.invoke(loans.account, "updateBatchRewardsData", name, totalSupply, initialBatch);
+        BigInteger startTimeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+
+        sm.getBlock().increase(DAY);
+
+        // Act
+        RewardsDataEntry user1UpdatedEntry = new RewardsDataEntry();
+        user1UpdatedEntry._balance = user1Balance;
+        user1UpdatedEntry._user = account1.getAddress();
+        RewardsDataEntry user2Entry = new RewardsDataEntry();
+        user2Entry._balance = BigInteger.ZERO;
+        user2Entry._user = account2.getAddress();
+        Object batch = new RewardsDataEntry[] {user1UpdatedEntry, user2Entry, user1UpdatedEntry};
+
+        rewardsScore.invoke(loans.account, "updateBatchRewardsData", name, totalSupply, batch);
+        BigInteger endTimeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+
+        // Assert
+        BigInteger emission = (BigInteger) rewardsScore.call("getEmission", BigInteger.valueOf(-1));
+        BigInteger loansDistribution = loansDist.dist_percent.multiply(emission).divide(EXA);
+        BigInteger user1Distribution = loansDistribution.multiply(user1Balance).divide(totalSupply);
+
+        BigInteger timeDiffInUS = endTimeInUS.subtract(startTimeInUS);
+        BigInteger user1ExpectedRewards = user1Distribution.multiply(timeDiffInUS).divide(MICRO_SECONDS_IN_A_DAY);
+
+        Object users = new Address[] {account1.getAddress(), account2.getAddress()};
+        Map<String, BigInteger> rewards = (Map<String, BigInteger>) rewardsScore.call("getBalnHoldings", users);
+
+        assertEquals(user1ExpectedRewards.divide(BigInteger.TEN),
+                rewards.get(account1.getAddress().toString()).divide(BigInteger.TEN));
+        assertEquals(BigInteger.ZERO, rewards.get(account2.getAddress().toString()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void getBalnHoldings_batchReportedBalance() {
+        // Arrange
+        Account account = sm.createAccount();
+
+        String name = "Loans";
+        BigInteger totalSupply = BigInteger.TEN.multiply(EXA);
+        BigInteger balance = BigInteger.TWO.multiply(EXA);
+
+        RewardsBalanceEntry entry = new RewardsBalanceEntry();
+        entry._user = account.getAddress();
+        entry._balance = BigInteger.ZERO;
+        entry._newBalance = balance;
+        Object batch = new RewardsBalanceEntry[] {entry};
 
+        // Act
+        rewardsScore.invoke(loans.account, "updateBatchRewardsDataWithBalance", name, totalSupply.subtract(balance),
+                totalSupply, batch);
+        BigInteger startTimeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+        sm.getBlock().increase(DAY);
+
+        Object users = new Address[] {account.getAddress()};
+        Map<String, BigInteger> rewards = (Map<String, BigInteger>) rewardsScore.call("getBalnHoldings", users);
+        BigInteger timeInUS = BigInteger.valueOf(sm.getBlock().getTimestamp());
+
+        // Assert
+        BigInteger emission = (BigInteger) rewardsScore.call("getEmission", BigInteger.valueOf(-1));
+        BigInteger loansDistribution = loansDist.dist_percent.multiply(emission).divide(EXA);
+        BigInteger userDistribution = loansDistribution.multiply(balance).divide(totalSupply);
+        BigInteger diffInUS = timeInUS.subtract(startTimeInUS);
+        BigInteger expectedRewards = userDistribution.multiply(diffInUS).divide(MICRO_SECONDS_IN_A_DAY);
+
+        assertEquals(expectedRewards.divide(BigInteger.TEN),
+                rewards.get(account.getAddress().toString()).divide(BigInteger.TEN));
+        verify(loans.mock, never()).getBalanceAndSupply(name, account.getAddress());
+    }
+}
@@ -161,7 +161,8 @@ public class StakedLPImpl implements StakedLP {
         Unstake(caller, id, value);
 
         String poolName = (String) Context.call(dex.get(), "getPoolName", id);
-        Context.call(rewards.get(), "updateRewardsData", poolName, previousTotal, caller, previousBalance);
+        Context.call(rewards.get(), "updateRewardsDataWithBalance", poolName, previousTotal, caller, previousBalance,
+                newTotal, newBalance);
 
         try {
             Context.call(dex.get(), "transfer", caller, value, id, new byte[0]);
@@ -195,7 +196,8 @@ public class StakedLPImpl implements StakedLP {
         Stake(user, id, value);
 
         String poolName = (String) Context.call(dex.get(), "getPoolName", id);
-        Context.call(rewards.get(), "updateRewardsData", poolName, previousTotal, user, previousBalance);
+        Context.call(rewards.get(), "updateRewardsDataWithBalance", poolName, previousTotal, user, previousBalance,
+                newTotal, newBalance);
     }
 
     @SuppressWarnings("unchecked")
@@ -188,7 +188,8 @@ public class StakedLPTest extends UnitTest {
         assertEquals(BigInteger.valueOf(20L), stakedLpScore.call("totalStaked", BigInteger.TWO));
 
         stakeLpTokens(bob, BigInteger.TWO, BigInteger.valueOf(20L));
-        verify(rewards.mock).updateRewardsData(poolTwoName, BigInteger.valueOf(20L), bob.getAddress(), BigInteger.ZERO);
+        verify(rewards.mock).updateRewardsDataWithBalance(poolTwoName, BigInteger.valueOf(20L), bob.getAddress(),
+                BigInteger.ZERO, BigInteger.valueOf(40L), BigInteger.valueOf(20L));
         assertEquals(BigInteger.valueOf(40L), stakedLpScore.call("totalStaked", BigInteger.TWO));
         assertEquals(BigInteger.valueOf(20L), stakedLpScore.call("balanceOf", alice.getAddress(), BigInteger.TWO));
         assertEquals(BigInteger.valueOf(20L), stakedLpScore.call("balanceOf", bob.getAddress(), BigInteger.TWO));
@@ -231,7 +232,9 @@ public class StakedLPTest extends UnitTest {
         assertEquals(totalStakedBalanceBeforeUnstake.subtract(aliceUnstakeAmount), stakedLpScore.call("totalStaked",
                 BigInteger.ONE));
         verify(dex.mock).transfer(alice.getAddress(), aliceUnstakeAmount, BigInteger.ONE, new byte[0]);
-        verify(rewards.mock).updateRewardsData(poolOneName, totalStakedBalanceBeforeUnstake, alice.getAddress(), aliceStakedBalance);
+        verify(rewards.mock).updateRewardsDataWithBalance(poolOneName, totalStakedBalanceBeforeUnstake, alice.getAddress(),
+                aliceStakedBalance, totalStakedBalanceBeforeUnstake.subtract(aliceUnstakeAmount),
+                aliceStakedBalance.subtract(aliceUnstakeAmount));
 
         // Adjust the values after first unstake
         aliceStakedBalance = aliceStakedBalance.subtract(aliceUnstakeAmount);
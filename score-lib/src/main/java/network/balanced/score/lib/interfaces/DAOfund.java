@@ -48,4 +48,10 @@ public interface DAOfund extends Name, GovernanceAddress, AdminAddress, LoansAdd
 
     @External
     void claim();
+
+    @External
+    void setCompactEvents(boolean _enabled);
+
+    @External(readonly = true)
+    boolean getCompactEvents();
 }
@@ -287,12 +287,21 @@ public interface Governance extends
     @External
     void setRedeemBatchSize(BigInteger _value);
 
+    @External
+    void pruneLoansSnapshots(BigInteger _batchSize);
+
+    @External
+    void setCompactEvents(boolean _enabled);
+
     @External
     void addPoolOnStakedLp(BigInteger _id);
 
     @External
     void setAddressesOnContract(String _contract);
 
+    @External
+    void pushLoansAddressBook();
+
     @External
     void setRouter(Address _router);
 
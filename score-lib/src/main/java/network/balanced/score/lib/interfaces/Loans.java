@@ -46,12 +46,36 @@ public interface Loans extends Name, TokenFallback, AdminAddress, DexAddress, Go
     @External(readonly = true)
     void migrateUserData(Address address);
 
+    @External
+    boolean migratePositions(int batchSize);
+
+    @External
+    boolean migrateLinkedLists(int batchSize);
+
+    @External(readonly = true)
+    boolean getPositionsMigrated();
+
     @External(readonly = true)
     Map<String, Object> userMigrationDetails(Address _address);
 
     @External
     void setContinuousRewardsDay(BigInteger _day);
 
+    @External
+    void setAddressBook(BigInteger _version, String _addressBook);
+
+    @External(readonly = true)
+    Map<String, Object> getAddressBook();
+
+    @External
+    Map<String, Object> pruneSnapshots(int batchSize);
+
+    @External
+    void setCompactEvents(boolean _enabled);
+
+    @External(readonly = true)
+    boolean getCompactEvents();
+
     @External(readonly = true)
     BigInteger getContinuousRewardsDay();
 
@@ -76,6 +100,12 @@ public interface Loans extends Name, TokenFallback, AdminAddress, DexAddress, Go
     @External(readonly = true)
     Address getPositionAddress(int _index);
 
+    @External(readonly = true)
+    Map<String, Object> getPositionsPage(int offset, int limit);
+
+    @External(readonly = true)
+    List<Map<String, Object>> getLiquidationCandidates(BigInteger price, int limit);
+
     @External(readonly = true)
     Map<String, String> getAssetTokens();
 
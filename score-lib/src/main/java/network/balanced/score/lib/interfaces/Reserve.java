@@ -33,5 +33,11 @@ import network.balanced.score.lib.interfaces.base.TokenFallback;
 public interface Reserve extends TokenFallback, AdminAddress, BalnAddress, SicxAddress, LoansAddress {
     @External
     public void redeem(Address to, BigInteger amount, BigInteger icxRate);
+
+    @External
+    public void setCompactEvents(boolean _enabled);
+
+    @External(readonly = true)
+    public boolean getCompactEvents();
 }
 
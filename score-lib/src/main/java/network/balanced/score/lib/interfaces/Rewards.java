@@ -21,6 +21,7 @@ import network.balanced.score.lib.interfaces.addresses.*;
 import network.balanced.score.lib.interfaces.base.Name;
 import network.balanced.score.lib.interfaces.base.TokenFallback;
 import network.balanced.score.lib.structs.DistributionPercentage;
+import network.balanced.score.lib.structs.RewardsBalanceEntry;
 import network.balanced.score.lib.structs.RewardsDataEntry;
 import score.Address;
 import score.annotation.External;
@@ -95,9 +96,17 @@ public interface Rewards extends
     @External
     void updateRewardsData(String _name, BigInteger _totalSupply, Address _user, BigInteger _balance);
 
+    @External
+    void updateRewardsDataWithBalance(String _name, BigInteger _totalSupply, Address _user, BigInteger _balance,
+                                      BigInteger _newTotalSupply, BigInteger _newBalance);
+
     @External
     void updateBatchRewardsData(String _name, BigInteger _totalSupply, RewardsDataEntry[] _data);
 
+    @External
+    void updateBatchRewardsDataWithBalance(String _name, BigInteger _totalSupply, BigInteger _newTotalSupply,
+                                           RewardsBalanceEntry[] _data);
+
     @External
     void addDataProvider(Address _source);
 
@@ -24,8 +24,14 @@ import java.math.BigInteger;
 public class Math {
     public static BigInteger pow(BigInteger base, int exponent) {
         BigInteger res = BigInteger.ONE;
-        for (int i = 1; i <= exponent; i++) {
-            res = res.multiply(base);
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) {
+                res = res.multiply(base);
+            }
+            exponent >>= 1;
+            if (exponent > 0) {
+                base = base.multiply(base);
+            }
         }
         return res;
     }
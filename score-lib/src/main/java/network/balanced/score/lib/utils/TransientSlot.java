@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.lib.utils;
+
+import score.Context;
+
+/**
+ * Holds a value for the rest of the transaction it was set in. The slot is a plain field, so like any other field
+ * of a contract it is persisted with the contract state. It remembers the transaction it was set in and reads as
+ * empty from any other transaction or readonly call. Meant for handshakes between a contract and a callback into it,
+ * such as a token transfer arriving in tokenFallback while the contract waits for it. Callers should clear the slot
+ * with set(null) once the handshake is done, which resets the slot to its initial state.
+ *
+ * @param <T> Type of the held value
+ */
+public class TransientSlot<T> {
+    private T value;
+    private long blockHeight = -1;
+    private int transactionIndex;
+    private long transactionTimestamp;
+
+    public void set(T value) {
+        this.value = value;
+        if (value == null) {
+            blockHeight = -1;
+            transactionIndex = 0;
+            transactionTimestamp = 0;
+            return;
+        }
+
+        blockHeight = Context.getBlockHeight();
+        transactionIndex = Context.getTransactionIndex();
+        transactionTimestamp = Context.getTransactionTimestamp();
+    }
+
+    public T get() {
+        if (blockHeight != Context.getBlockHeight() || transactionIndex != Context.getTransactionIndex() ||
+                transactionTimestamp != Context.getTransactionTimestamp()) {
+            return null;
+        }
+        return value;
+    }
+
+    public T getOrDefault(T defaultValue) {
+        T current = get();
+        return current == null ? defaultValue : current;
+    }
+}
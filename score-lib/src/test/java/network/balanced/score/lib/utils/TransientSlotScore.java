@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.lib.utils;
+
+import score.Address;
+import score.Context;
+import score.VarDB;
+import score.annotation.External;
+
+import java.math.BigInteger;
+
+/**
+ * Contract holding a TransientSlot, recording what the slot reads at each step so that tests can inspect it.
+ */
+public class TransientSlotScore {
+    private final TransientSlot<BigInteger> slot = new TransientSlot<>();
+    private final VarDB<BigInteger> observed = Context.newVarDB("observed", BigInteger.class);
+    private final VarDB<BigInteger> observedInCallback = Context.newVarDB("observed_in_callback", BigInteger.class);
+
+    @External
+    public void set(BigInteger _value) {
+        slot.set(_value);
+        observed.set(slot.get());
+    }
+
+    @External
+    public void observe() {
+        observed.set(slot.get());
+    }
+
+    @External
+    public void setAndClear(BigInteger _value) {
+        slot.set(_value);
+        slot.set(null);
+        observed.set(slot.get());
+    }
+
+    /**
+     * Sets the slot and calls other, which calls back into receive before the slot is read again.
+     */
+    @External
+    public void handshake(BigInteger _value, Address _other) {
+        slot.set(_value);
+        Context.call(_other, "bounce", Context.getAddress());
+        observed.set(slot.get());
+        slot.set(null);
+    }
+
+    @External
+    public void bounce(Address _caller) {
+        Context.call(_caller, "receive");
+    }
+
+    @External
+    public void receive() {
+        BigInteger value = slot.get();
+        observedInCallback.set(value);
+        slot.set(value.add(BigInteger.ONE));
+    }
+
+    @External(readonly = true)
+    public BigInteger getObserved() {
+        return observed.get();
+    }
+
+    @External(readonly = true)
+    public BigInteger getObservedInCallback() {
+        return observedInCallback.get();
+    }
+}
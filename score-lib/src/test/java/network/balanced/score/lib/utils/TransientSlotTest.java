@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2022-2022 Balanced.network.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package network.balanced.score.lib.utils;
+
+import com.iconloop.score.test.Account;
+import com.iconloop.score.test.Score;
+import com.iconloop.score.test.ServiceManager;
+import com.iconloop.score.test.TestBase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TransientSlotTest extends TestBase {
+    static final ServiceManager sm = getServiceManager();
+    static final Account owner = sm.createAccount();
+    private Score slotScore;
+
+    @BeforeEach
+    void setup() throws Exception {
+        slotScore = sm.deploy(owner, TransientSlotScore.class);
+    }
+
+    @Test
+    void get_sameTransaction() {
+        slotScore.invoke(owner, "set", BigInteger.TEN);
+
+        assertEquals(BigInteger.TEN, slotScore.call("getObserved"));
+    }
+
+    @Test
+    void get_nextTransaction() {
+        slotScore.invoke(owner, "set", BigInteger.TEN);
+
+        slotScore.invoke(owner, "observe");
+
+        assertNull(slotScore.call("getObserved"));
+    }
+
+    @Test
+    void set_null() {
+        slotScore.invoke(owner, "setAndClear", BigInteger.TEN);
+
+        assertNull(slotScore.call("getObserved"));
+    }
+
+    @Test
+    void get_reentrantCallback() throws Exception {
+        Score other = sm.deploy(owner, TransientSlotScore.class);
+
+        slotScore.invoke(owner, "handshake", BigInteger.TEN, other.getAddress());
+
+        assertEquals(BigInteger.TEN, slotScore.call("getObservedInCallback"));
+        assertEquals(BigInteger.valueOf(11), slotScore.call("getObserved"));
+        assertNull(other.call("getObserved"));
+
+        slotScore.invoke(owner, "observe");
+        assertNull(slotScore.call("getObserved"));
+    }
+}